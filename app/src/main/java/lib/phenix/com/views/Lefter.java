@@ -104,4 +104,9 @@ public class Lefter extends FrameLayout implements OnRefreshListener {
         successIcon.setVisibility(VISIBLE);
         textView.setText("刷新成功");
     }
+
+    @Override
+    public void onReset() {
+        onIdle();
+    }
 }
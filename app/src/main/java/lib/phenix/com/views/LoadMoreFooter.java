@@ -105,4 +105,9 @@ public class LoadMoreFooter extends FrameLayout implements OnRefreshListener {
         successIcon.setVisibility(VISIBLE);
         textView.setText("加载成功");
     }
+
+    @Override
+    public void onReset() {
+        onIdle();
+    }
 }
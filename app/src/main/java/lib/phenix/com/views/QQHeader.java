@@ -103,4 +103,9 @@ public class QQHeader extends FrameLayout implements OnRefreshListener {
         successIcon.setVisibility(VISIBLE);
         textView.setText("刷新成功");
     }
+
+    @Override
+    public void onReset() {
+        onIdle();
+    }
 }
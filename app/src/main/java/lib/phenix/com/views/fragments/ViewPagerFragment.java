@@ -9,6 +9,8 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import lib.phenix.com.swipetorefresh.OverScrollLayout;
+import lib.phenix.com.swipetorefresh.ViewPagerArbiter;
 import lib.phenix.com.views.R;
 import lib.phenix.com.views.SimplePagerAdapter;
 
@@ -30,6 +32,8 @@ public class ViewPagerFragment extends Fragment {
         ViewPager viewPager = (ViewPager) v.findViewById(R.id.pager);
         SimplePagerAdapter pagerAdapter = new SimplePagerAdapter(getChildFragmentManager(), ScrollFragment.class,RecyclerFragment.class,WebViewFragment.class);
         viewPager.setAdapter(pagerAdapter);
+        OverScrollLayout overScrollLayout = (OverScrollLayout) v.findViewById(R.id.overscroll);
+        overScrollLayout.setScrollEdgeDetector(new ViewPagerArbiter(overScrollLayout, viewPager));
 
         TabLayout tabLayout = (TabLayout) v.findViewById(R.id.tabLayout);
         tabLayout.setupWithViewPager(viewPager);
@@ -1,6 +1,7 @@
 package lib.phenix.com.views.fragments;
 
 
+import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
@@ -9,6 +10,7 @@ import android.view.ViewGroup;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
+import lib.phenix.com.swipetorefresh.view.EdgeTrackingWebView;
 import lib.phenix.com.views.R;
 
 /**
@@ -27,7 +29,8 @@ public class WebViewFragment extends Fragment {
                              Bundle savedInstanceState) {
 
         View v  = inflater.inflate(R.layout.layout_web, container, false);
-        WebView w = (WebView) v.findViewById(R.id.webView);
+        EdgeTrackingWebView w = (EdgeTrackingWebView) v.findViewById(R.id.webView);
+        w.enableInnerScrollReporting();
         w.loadUrl("http://p.codekk.com/");
         w.setWebViewClient(new WebViewClient(){
             @Override
@@ -35,6 +38,18 @@ public class WebViewFragment extends Fragment {
                 view.loadUrl(url);
                 return true;
             }
+
+            @Override
+            public void onPageStarted(WebView view, String url, Bitmap favicon) {
+                super.onPageStarted(view, url, favicon);
+                ((EdgeTrackingWebView) view).onPageStarted();
+            }
+
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                super.onPageFinished(view, url);
+                ((EdgeTrackingWebView) view).onPageFinished();
+            }
         });
         return v;
     }
@@ -0,0 +1,79 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.app.Activity;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import lib.phenix.com.swipetorefresh.benchmark.Bench;
+import lib.phenix.com.swipetorefresh.benchmark.BuildConfig;
+
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.LEFT;
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.TOP;
+
+/**
+ * 拖拽中每帧的onViewPositionChanged：摆放边缘View并通知子类
+ * 在Robolectric上运行，绘制和布局走的是shadow实现，结果用于比较分配和相对耗时，不代表真机耗时
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LayoutBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Test
+    public void swipeToRefreshPositionChanged() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        View content = new View(activity);
+        SwipeToRefreshLayout layout = new SwipeToRefreshLayout(activity, content, TOP);
+        layout.setTopView(new IndicatorsRefreshHeader(activity));
+        measure("SwipeToRefreshLayout.onViewPositionChanged", layout, content, TOP);
+    }
+
+    @Test
+    public void swipeDrawerPositionChanged() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        View content = new View(activity);
+        SwipeDrawerLayout layout = new SwipeDrawerLayout(activity, content, LEFT);
+        layout.setLeftView(new View(activity));
+        measure("SwipeDrawerLayout.onViewPositionChanged", layout, content, LEFT);
+    }
+
+    /**
+     * 内容在0到最大拖拽距离之间来回移动，每帧移动1px
+     */
+    private static void measure(String name, BaseSwipeLayout layout, final View content, final int direction) {
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+        layout.mCurrentDirection = direction;
+        layout.obtainDragHelper();
+        final BaseSwipeLayout.DragCallback callback = layout.new DragCallback();
+        final boolean horizontal = DragMath.isHorizontal(direction);
+        final int range = horizontal
+                ? callback.getViewHorizontalDragRange(content)
+                : callback.getViewVerticalDragRange(content);
+        Bench.measure(name, new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int cycle = i % (range * 2);
+                int offset = cycle < range ? cycle : range * 2 - cycle;
+                if (horizontal) {
+                    int dx = offset - content.getLeft();
+                    content.offsetLeftAndRight(dx);
+                    callback.onViewPositionChanged(content, offset, 0, dx, 0);
+                } else {
+                    int dy = offset - content.getTop();
+                    content.offsetTopAndBottom(dy);
+                    callback.onViewPositionChanged(content, 0, offset, 0, dy);
+                }
+                return offset;
+            }
+        });
+    }
+}
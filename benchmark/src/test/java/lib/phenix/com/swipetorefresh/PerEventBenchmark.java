@@ -0,0 +1,133 @@
+package lib.phenix.com.swipetorefresh;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import lib.phenix.com.swipetorefresh.benchmark.Bench;
+
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.TOP;
+
+/**
+ * 每个触摸事件都会执行的纯计算，不需要Android环境
+ * 输入预先随机生成并轮换使用，避免分支被固定输入预测
+ */
+public class PerEventBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+    private static final int EXTENT = 300;
+    private static final float MIN_FLING = 100;
+
+    private static final float[] DX = new float[SIZE];
+    private static final float[] DY = new float[SIZE];
+    private static final int[] POSITION = new int[SIZE];
+    private static final int[] DELTA = new int[SIZE];
+    private static final float[] VELOCITY = new float[SIZE];
+
+    static {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            DX[i] = random.nextFloat() * 200 - 100;
+            DY[i] = random.nextFloat() * 200 - 100;
+            POSITION[i] = random.nextInt(EXTENT * 2) - EXTENT / 2;
+            DELTA[i] = random.nextInt(60) - 30;
+            VELOCITY[i] = random.nextFloat() * 4000 - 2000;
+        }
+    }
+
+    @Test
+    public void classifyDirection() {
+        Bench.measure("DragMath.classifyDirection", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int k = i & MASK;
+                return DragMath.classifyDirection(DX[k], DY[k]);
+            }
+        });
+    }
+
+    @Test
+    public void clamp() {
+        Bench.measure("DragMath.clamp", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int k = i & MASK;
+                return DragMath.clamp(POSITION[k], 0, EXTENT, (k & 1) == 0, DELTA[k], 0.3f);
+            }
+        });
+    }
+
+    @Test
+    public void openingVelocity() {
+        Bench.measure("DragMath.openingVelocity", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int k = i & MASK;
+                return (long) DragMath.openingVelocity(1 << (k & 3), VELOCITY[k], VELOCITY[MASK - k]);
+            }
+        });
+    }
+
+    @Test
+    public void findSnapOffset() {
+        final float[] thirds = SnapPoints.normalize(1 / 3f, 2 / 3f, 1f);
+        Bench.measure("SnapPoints.findSnapOffset", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int k = i & MASK;
+                return SnapPoints.findSnapOffset(POSITION[k], EXTENT, thirds, VELOCITY[k], MIN_FLING);
+            }
+        });
+    }
+
+    @Test
+    public void velocityEstimator() {
+        final VelocityEstimator estimator = new VelocityEstimator();
+        Bench.measure("VelocityEstimator.addSample+computeVelocity", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int k = i & MASK;
+                estimator.addSample(DX[k], DY[k], i * 8L);
+                estimator.computeVelocity();
+                return (long) estimator.getYVelocity();
+            }
+        });
+    }
+
+    @Test
+    public void stateMachinePointerMove() {
+        final RefreshStateMachine machine = new RefreshStateMachine(new RefreshStateMachine.Effects() {
+            @Override
+            public void onStateChanged(int state) {
+            }
+
+            @Override
+            public void onRefresh(int direction) {
+            }
+
+            @Override
+            public void onLockDirectionChanged(int direction) {
+            }
+        });
+        Bench.measure("RefreshStateMachine.onPointerMove", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                int k = i & MASK;
+                return machine.onPointerMove(TOP, POSITION[k], EXTENT, (k & 7) == 0) ? 1 : 0;
+            }
+        });
+    }
+
+    @Test
+    public void latencyHistogramRecord() {
+        final LatencyHistogram histogram = new LatencyHistogram(4, 8, 16, 33, 50, 100, 200, 500);
+        Bench.measure("LatencyHistogram.record", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                histogram.record(POSITION[i & MASK] & 511);
+                return histogram.getCount();
+            }
+        });
+    }
+}
@@ -0,0 +1,237 @@
+package lib.phenix.com.swipetorefresh.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 基准测试工具，在JUnit测试中调用{@link #measure(String, Op)}
+ * 先按目标时长确定每轮执行次数并预热，再测量多轮：ns/op取各轮中位数，
+ * B/op为当前线程在测量期间分配的字节数除以执行次数(JVM不提供对象个数，0 B/op即没有分配)
+ * 结果追加到系统属性benchmark.output指定的文件，并与benchmark.baseline中的基准比较：
+ * 没有基准或分配超过基准即失败；耗时与机器相关，只在benchmark.timeTolerance大于0时按倍数检查；
+ * benchmark.record为true时不比较，把结果写入基准文件
+ */
+
+public final class Bench {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final long ROUND_NANOS = 50000000L;
+    /**
+     * 分配统计允许的误差，测量本身在每轮会分配少量对象，均摊到每次执行后远小于1字节
+     */
+    private static final double ALLOC_SLACK = 0.5;
+
+    /**
+     * 累加每次执行的返回值，避免被JIT当作无用代码消除
+     */
+    static volatile long sSink;
+
+    private static Map<String, double[]> sBaseline;
+
+    private Bench() {
+    }
+
+    /**
+     * 被测操作
+     */
+    public interface Op {
+
+        /**
+         * @param i 第几次执行，用于轮换输入
+         * @return 任意与结果相关的值
+         */
+        long run(int i);
+    }
+
+    public static Result measure(String name, Op op) {
+        int ops = calibrate(op);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(op, ops);
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[ROUNDS];
+        long allocated = 0;
+        boolean allocSupported = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+        long threadId = Thread.currentThread().getId();
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytesBefore = allocSupported ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) : 0;
+            nanos[round] = runRound(op, ops);
+            if (allocSupported) {
+                allocated += ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) - bytesBefore;
+            }
+        }
+        Arrays.sort(nanos);
+        double nsPerOp = (double) (nanos[ROUNDS / 2 - 1] + nanos[ROUNDS / 2]) / 2 / ops;
+        double bytesPerOp = allocSupported ? (double) allocated / ((long) ops * ROUNDS) : -1;
+        Result result = new Result(name, nsPerOp, bytesPerOp);
+        report(result);
+        return result;
+    }
+
+    /**
+     * 翻倍执行次数直到一轮达到目标时长
+     */
+    private static int calibrate(Op op) {
+        int ops = 1;
+        while (ops < (1 << 28)) {
+            if (runRound(op, ops) >= ROUND_NANOS / 4) {
+                return (int) Math.min(ops * 4L, Integer.MAX_VALUE);
+            }
+            ops <<= 1;
+        }
+        return ops;
+    }
+
+    private static long runRound(Op op, int ops) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            sink += op.run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        sSink += sink;
+        return elapsed;
+    }
+
+    private static synchronized void report(Result result) {
+        System.out.println(result);
+        String output = System.getProperty("benchmark.output");
+        if (null != output) {
+            append(new File(output), result.toLine());
+        }
+        String baselinePath = System.getProperty("benchmark.baseline");
+        if (null == baselinePath) return;
+        File baselineFile = new File(baselinePath);
+        if (Boolean.getBoolean("benchmark.record")) {
+            record(baselineFile, result);
+            return;
+        }
+        double[] baseline = baseline(baselineFile).get(result.name);
+        if (null == baseline) {
+            //新增的基准测试必须先记录基准，否则门禁形同虚设
+            throw new AssertionError(result.name + " 没有基准，用-PbenchmarkRecord记录到" + baselineFile.getName());
+        }
+        if (result.bytesPerOp >= 0 && baseline[1] >= 0 && result.bytesPerOp > baseline[1] + ALLOC_SLACK) {
+            throw new AssertionError(String.format(Locale.US, "%s 分配回归: %.2f B/op, 基准 %.2f B/op",
+                    result.name, result.bytesPerOp, baseline[1]));
+        }
+        double tolerance = Double.parseDouble(System.getProperty("benchmark.timeTolerance", "0"));
+        if (tolerance > 0 && result.nsPerOp > baseline[0] * tolerance) {
+            throw new AssertionError(String.format(Locale.US, "%s 耗时回归: %.1f ns/op, 基准 %.1f ns/op, 允许 %.2f 倍",
+                    result.name, result.nsPerOp, baseline[0], tolerance));
+        }
+    }
+
+    private static Map<String, double[]> baseline(File file) {
+        if (null == sBaseline) {
+            sBaseline = new LinkedHashMap<>();
+            for (String line : readLines(file)) {
+                String[] columns = line.trim().split("\\s+");
+                if (line.startsWith("#") || columns.length < 3) continue;
+                sBaseline.put(columns[0], new double[]{Double.parseDouble(columns[1]), Double.parseDouble(columns[2])});
+            }
+        }
+        return sBaseline;
+    }
+
+    /**
+     * 替换或追加对应的行，保留注释和其他基准
+     */
+    private static void record(File file, Result result) {
+        List<String> lines = readLines(file);
+        boolean replaced = false;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith(result.name + " ") || lines.get(i).startsWith(result.name + "\t")) {
+                lines.set(i, result.toLine());
+                replaced = true;
+            }
+        }
+        if (!replaced) lines.add(result.toLine());
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        write(file, content.toString(), false);
+    }
+
+    private static List<String> readLines(File file) {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) return lines;
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    lines.add(line);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取失败: " + file, e);
+        }
+        return lines;
+    }
+
+    private static void append(File file, String line) {
+        write(file, line + '\n', true);
+    }
+
+    private static void write(File file, String content, boolean append) {
+        File parent = file.getParentFile();
+        if (null != parent && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("无法创建目录: " + parent);
+        }
+        try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file, append), "UTF-8");
+            try {
+                writer.write(content);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("写入失败: " + file, e);
+        }
+    }
+
+    public static final class Result {
+
+        public final String name;
+        public final double nsPerOp;
+        /**
+         * 不支持线程分配统计时为-1
+         */
+        public final double bytesPerOp;
+
+        Result(String name, double nsPerOp, double bytesPerOp) {
+            this.name = name;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        String toLine() {
+            return String.format(Locale.US, "%-56s %12.1f %10.2f", name, nsPerOp, bytesPerOp);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %.1f ns/op, %.2f B/op", name, nsPerOp, bytesPerOp);
+        }
+    }
+}
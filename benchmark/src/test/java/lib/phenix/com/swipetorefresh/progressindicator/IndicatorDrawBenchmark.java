@@ -0,0 +1,55 @@
+package lib.phenix.com.swipetorefresh.progressindicator;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import lib.phenix.com.swipetorefresh.benchmark.Bench;
+import lib.phenix.com.swipetorefresh.benchmark.BuildConfig;
+
+/**
+ * 28种指示器各自的draw()，不启动动画，只测量一帧的绘制代码
+ * 在Robolectric上Canvas是shadow实现，结果用于比较分配和相对耗时，不代表真机耗时
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class IndicatorDrawBenchmark {
+
+    private static final String[] NAMES = {
+            "BallPulse", "BallGridPulse", "BallClipRotate", "BallClipRotatePulse", "SquareSpin",
+            "BallClipRotateMultiple", "BallPulseRise", "BallRotate", "CubeTransition", "BallZigZag",
+            "BallZigZagDeflect", "BallTrianglePath", "BallScale", "LineScale", "LineScaleParty",
+            "BallScaleMultiple", "BallPulseSync", "BallBeat", "LineScalePulseOut", "LineScalePulseOutRapid",
+            "BallScaleRipple", "BallScaleRippleMultiple", "BallSpinFadeLoader", "LineSpinFadeLoader",
+            "TriangleSkewSpin", "Pacman", "BallGridBeat", "SemiCircleSpin"
+    };
+
+    private static final int SIZE = 120;
+
+    @Test
+    public void drawEveryIndicator() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        for (int id = 0; id < NAMES.length; id++) {
+            final AVLoadingIndicatorView view = new AVLoadingIndicatorView(activity);
+            view.setIndicatorId(id);
+            view.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+            view.layout(0, 0, SIZE, SIZE);
+            Bench.measure("Indicator.draw." + NAMES[id], new Bench.Op() {
+                @Override
+                public long run(int i) {
+                    view.mIndicatorController.draw(canvas, view.mPaint);
+                    return i;
+                }
+            });
+        }
+    }
+}
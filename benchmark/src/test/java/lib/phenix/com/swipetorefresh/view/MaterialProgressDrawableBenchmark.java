@@ -0,0 +1,100 @@
+package lib.phenix.com.swipetorefresh.view;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.animation.Animation;
+import android.view.animation.Transformation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import lib.phenix.com.swipetorefresh.benchmark.Bench;
+import lib.phenix.com.swipetorefresh.benchmark.BuildConfig;
+
+/**
+ * MaterialProgressDrawable每帧的计算：动画插值更新圆环、下拉时旋转圆环，以及绘制
+ * 只使用公开的start()、setProgressRotation()和draw()；动画时间由测试推进，每次执行前进一帧(16ms)，时间单调递增，会经过每一轮的重复和换色
+ * 在Robolectric上Canvas是shadow实现，结果用于比较分配和相对耗时，不代表真机耗时
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MaterialProgressDrawableBenchmark {
+
+    private static final int SIZE = 120;
+    private static final long FRAME_MS = 16;
+
+    @Test
+    public void applyTransformation() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        View executor = new View(activity);
+        final Animation animation = start(newDrawable(activity, executor), executor);
+        final Transformation transformation = new Transformation();
+        final long[] time = {0};
+        Bench.measure("MaterialProgressDrawable.applyTransformation", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                animation.getTransformation(time[0] += FRAME_MS, transformation);
+                return i;
+            }
+        });
+    }
+
+    @Test
+    public void frame() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        View executor = new View(activity);
+        final MaterialProgressDrawable drawable = newDrawable(activity, executor);
+        final Animation animation = start(drawable, executor);
+        final Transformation transformation = new Transformation();
+        final long[] time = {0};
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        Bench.measure("MaterialProgressDrawable.frame", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                animation.getTransformation(time[0] += FRAME_MS, transformation);
+                drawable.draw(canvas);
+                return i;
+            }
+        });
+    }
+
+    /**
+     * 下拉时的一帧：与MaterialRefreshHeader.onPositionChange一样按拖拽比例旋转圆环，再绘制
+     */
+    @Test
+    public void dragFrame() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        final MaterialProgressDrawable drawable = newDrawable(activity, new View(activity));
+        drawable.showArrow(true);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888));
+        Bench.measure("MaterialProgressDrawable.dragFrame", new Bench.Op() {
+            @Override
+            public long run(int i) {
+                drawable.setProgressRotation((i % 100) / 100f);
+                drawable.draw(canvas);
+                return i;
+            }
+        });
+    }
+
+    private static MaterialProgressDrawable newDrawable(Activity activity, View executor) {
+        MaterialProgressDrawable drawable = new MaterialProgressDrawable(activity, executor);
+        drawable.setBounds(0, 0, SIZE, SIZE);
+        return drawable;
+    }
+
+    /**
+     * start()把动画交给构造时传入的View执行，从这个View取得动画，时间从0开始由测试推进
+     */
+    private static Animation start(MaterialProgressDrawable drawable, View executor) {
+        drawable.start();
+        Animation animation = executor.getAnimation();
+        animation.setStartTime(0);
+        return animation;
+    }
+}
@@ -0,0 +1,222 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * EdgeViewPool的存取、每种类型的上限，以及放回时对View和header内部状态的还原
+ */
+@RunWith(AndroidJUnit4.class)
+public class EdgeViewPoolTest {
+
+    private static final int TYPE = 1;
+    private static final int OTHER_TYPE = 2;
+    private static final int REFRESH_POINT = 200;
+    private static final int RANGE = 400;
+
+    private Context mContext;
+    private EdgeViewPool mPool;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mPool = new EdgeViewPool();
+    }
+
+    @Test
+    public void getReturnsViewsOfTheSameType() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                View first = new View(mContext);
+                View second = new View(mContext);
+                mPool.put(TYPE, first);
+                mPool.put(TYPE, second);
+                assertNull(mPool.get(OTHER_TYPE));
+                assertSame(second, mPool.get(TYPE));
+                assertSame(first, mPool.get(TYPE));
+                assertNull(mPool.get(TYPE));
+            }
+        });
+    }
+
+    @Test
+    public void putDetachesFromParentAndIgnoresDuplicates() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                FrameLayout parent = new FrameLayout(mContext);
+                View view = new View(mContext);
+                parent.addView(view);
+                mPool.put(TYPE, view);
+                mPool.put(TYPE, view);
+                assertNull(view.getParent());
+                assertEquals(0, parent.getChildCount());
+                assertSame(view, mPool.get(TYPE));
+                assertNull("同一个View只缓存一次", mPool.get(TYPE));
+            }
+        });
+    }
+
+    @Test
+    public void capIsPerType() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mPool.setMaxRecycledViews(TYPE, 2);
+                for (int i = 0; i < 3; i++) {
+                    mPool.put(TYPE, new View(mContext));
+                    mPool.put(OTHER_TYPE, new View(mContext));
+                }
+                assertEquals(2, drain(TYPE));
+                assertEquals("其他类型使用默认上限", 3, drain(OTHER_TYPE));
+
+                for (int i = 0; i < 3; i++) {
+                    mPool.put(OTHER_TYPE, new View(mContext));
+                }
+                mPool.setMaxRecycledViews(OTHER_TYPE, 1);
+                assertEquals("调低上限时丢弃多出的View", 1, drain(OTHER_TYPE));
+            }
+        });
+    }
+
+    @Test
+    public void putResetsViewProperties() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                View view = new View(mContext);
+                ViewCompat.setTranslationX(view, 10);
+                ViewCompat.setTranslationY(view, 20);
+                ViewCompat.setScaleX(view, 0.5f);
+                ViewCompat.setScaleY(view, 0.5f);
+                ViewCompat.setAlpha(view, 0.3f);
+                mPool.put(TYPE, view);
+                assertEquals(0f, ViewCompat.getTranslationX(view), 0f);
+                assertEquals(0f, ViewCompat.getTranslationY(view), 0f);
+                assertEquals(1f, ViewCompat.getScaleX(view), 0f);
+                assertEquals(1f, ViewCompat.getScaleY(view), 0f);
+                assertEquals(1f, ViewCompat.getAlpha(view), 0f);
+            }
+        });
+    }
+
+    @Test
+    public void putResetsIndicatorsHeader() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                IndicatorsRefreshHeader header = new IndicatorsRefreshHeader(mContext);
+                header.onDragging();
+                drag(header, RANGE);
+                drag(header, REFRESH_POINT / 2);
+                header.onLoading();
+
+                mPool.put(TYPE, header);
+                assertSame(header, mPool.get(TYPE));
+                assertEquals(0f, ViewCompat.getRotation(header.mIndicatorView), 0f);
+                assertEquals(1f, ViewCompat.getScaleX(header.mIndicatorView), 0f);
+                assertEquals(1f, ViewCompat.getAlpha(header.mIndicatorView), 0f);
+                assertEquals("滑动刷新...", header.mText.getText().toString());
+
+                //复用后拖拽到与放回前相同的比例，缓存的比例已清除，仍要重新设置缩放
+                header.onDragging();
+                drag(header, REFRESH_POINT / 2);
+                assertEquals(0.5f, ViewCompat.getScaleX(header.mIndicatorView), 0f);
+                assertEquals(0.5f, ViewCompat.getAlpha(header.mIndicatorView), 0f);
+                assertEquals("拖拽刷新", header.mText.getText().toString());
+            }
+        });
+    }
+
+    @Test
+    public void putCallsOnReset() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RecordingHeader header = new RecordingHeader(mContext);
+                mPool.put(TYPE, header);
+                assertEquals(1, header.mResets);
+                assertEquals("复用池只调用onReset", 0, header.mIdles);
+
+                mPool.setMaxRecycledViews(OTHER_TYPE, 0);
+                mPool.put(OTHER_TYPE, header);
+                assertEquals("被丢弃的View不需要还原", 1, header.mResets);
+            }
+        });
+    }
+
+    private int drain(int type) {
+        int count = 0;
+        while (null != mPool.get(type)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void drag(OnRefreshListener header, int current) {
+        header.onPositionChange(SwipeToRefreshLayout.LEFT, SwipeToRefreshLayout.DRAGGING,
+                REFRESH_POINT, RANGE, current, 0, 0, 0, current, 0);
+    }
+
+    private static void runOnMainSync(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    static class RecordingHeader extends View implements OnRefreshListener {
+
+        int mIdles;
+        int mResets;
+
+        RecordingHeader(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void onIdle() {
+            mIdles++;
+        }
+
+        @Override
+        public void onDragging() {
+        }
+
+        @Override
+        public void onLoading() {
+        }
+
+        @Override
+        public void onSettling() {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onReset() {
+            mResets++;
+        }
+
+        @Override
+        public void onPositionChange(@SwipeToRefreshLayout.SwipeDirection int direction,
+                                     @SwipeToRefreshLayout.State int state,
+                                     int refreshPoint, int range,
+                                     int currentX, int currentY,
+                                     int lastX, int lastY,
+                                     float touchX, float touchY) {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 拖拽过程中IndicatorsRefreshHeader只在越过刷新点时请求布局，其余每一帧都不触发布局
+ */
+@RunWith(AndroidJUnit4.class)
+public class IndicatorsRefreshHeaderLayoutTest {
+
+    private static final int REFRESH_POINT = 200;
+    private static final int RANGE = 400;
+    private static final int SIZE = 1080;
+
+    private FrameLayout mParent;
+    private IndicatorsRefreshHeader mHeader;
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                mParent = new FrameLayout(context);
+                mHeader = new IndicatorsRefreshHeader(context);
+                mParent.addView(mHeader);
+                mHeader.onDragging();
+                layoutPass();
+            }
+        });
+    }
+
+    @Test
+    public void dragFramesDoNotRequestLayout() {
+        final int[] layouts = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                for (int x = 1; x < REFRESH_POINT; x++) {
+                    layouts[0] += frame(x);
+                }
+            }
+        });
+        assertEquals("未越过刷新点的拖拽帧不应触发布局", 0, layouts[0]);
+    }
+
+    @Test
+    public void onlyThresholdCrossingsRequestLayout() {
+        final int[] layouts = new int[3];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                for (int x = 1; x < REFRESH_POINT; x++) {
+                    layouts[0] += frame(x);
+                }
+                //越过刷新点
+                layouts[1] += frame(REFRESH_POINT);
+                for (int x = REFRESH_POINT + 1; x <= RANGE; x++) {
+                    layouts[0] += frame(x);
+                }
+                //退回刷新点以下
+                layouts[2] += frame(REFRESH_POINT - 1);
+                for (int x = REFRESH_POINT - 2; x > 0; x--) {
+                    layouts[0] += frame(x);
+                }
+            }
+        });
+        assertEquals("不越过刷新点的帧不应触发布局", 0, layouts[0]);
+        assertTrue("越过刷新点最多触发一次布局", layouts[1] <= 1);
+        assertTrue("退回刷新点以下最多触发一次布局", layouts[2] <= 1);
+    }
+
+    /**
+     * 模拟一帧拖拽，返回这一帧请求的布局次数(0或1)，并执行布局清除请求标记
+     */
+    private int frame(int current) {
+        mHeader.onPositionChange(SwipeToRefreshLayout.TOP, SwipeToRefreshLayout.DRAGGING,
+                REFRESH_POINT, RANGE, current, current, 0, 0, 0, current);
+        if (!mParent.isLayoutRequested()) return 0;
+        layoutPass();
+        return 1;
+    }
+
+    private void layoutPass() {
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        mParent.measure(spec, spec);
+        mParent.layout(0, 0, SIZE, SIZE);
+    }
+}
@@ -0,0 +1,1223 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.widget.ViewDragHelper;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+
+/**
+ * OverScrollLayout、SwipeDrawerLayout、SwipeToRefreshLayout共用的拖拽引擎
+ * 负责边缘View的创建、测量、摆放，滑动方向的判断及ViewDragHelper的驱动，
+ * 子类只需要实现释放、状态变化等策略
+ */
+
+public abstract class BaseSwipeLayout extends ViewGroup {
+
+    public static final int NONE = 0;
+    public static final int LEFT = 1;
+    public static final int TOP = 1 << 1;
+    public static final int RIGHT = 1 << 2;
+    public static final int BOTTOM = 1 << 3;
+
+
+    @IntDef({NONE,
+            LEFT,
+            TOP,
+            RIGHT,
+            BOTTOM})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SwipeDirection {
+    }
+
+    /**
+     * 第一次touch时才创建
+     */
+    ViewDragHelper mViewDragHelper;
+
+    int mDirectionMask = TOP;
+
+    @SwipeDirection
+    int mCurrentDirection;
+
+    /**
+     * 已展开并停留的方向
+     */
+    @SwipeDirection
+    int mLockDirection;
+
+    boolean enableSwipe;
+
+
+    int mOriginX;
+    int mOriginY;
+
+    /**
+     * 阻尼因子
+     */
+    float mHorizontalFactor = 0.3f;
+    float mVerticalFactor = 0.3f;
+
+    /**
+     * Touch阻尼
+     */
+    float damping = 0.65f;
+    /**
+     * 水平drag的范围
+     */
+    int mVerticalDragRange;
+    /**
+     * 竖直drag的范围
+     */
+    int mHorizontalDragRange;
+
+
+    /**
+     * 主体View
+     */
+    View mContentView;
+    int contentLayoutId;
+    View mLeftView;
+    View mRightView;
+    View mBottomView;
+    View mTopView;
+
+    /**
+     * 延迟到第一次向该方向滑动时才inflate边缘View
+     */
+    boolean mLazyEdgeViews;
+    int mLeftLayoutId = View.NO_ID;
+    int mTopLayoutId = View.NO_ID;
+    int mRightLayoutId = View.NO_ID;
+    int mBottomLayoutId = View.NO_ID;
+
+    /**
+     * 直接绘制在露出区域的边缘Drawable，不需要子View
+     */
+    Drawable mLeftDrawable;
+    Drawable mTopDrawable;
+    Drawable mRightDrawable;
+    Drawable mBottomDrawable;
+
+    /**
+     * 当前touch的坐标
+     */
+    float mTouchX, mTouchY;
+    /**
+     * 记录MotionEvent.ACTION_DOWN的坐标
+     */
+    float downX, downY;
+
+    /**
+     * MotionEvent.ACTION_DOWN时mContentView的左上顶点
+     */
+    int lastDownLeft, lastDownTop;
+
+    /**
+     * 使用MotionEvent中批量的历史采样估计速度，释放时传给onContentReleased
+     */
+    final VelocityEstimator mVelocityEstimator = new VelocityEstimator();
+    float mMinFlingVelocity;
+
+    /**
+     * 冻结期间由边缘View发起、在本地处理掉的布局请求，解冻后补一次完整布局
+     */
+    boolean mPendingLayout;
+    private boolean mEdgeLayoutScheduled;
+    private int mLastWidthMeasureSpec;
+    private int mLastHeightMeasureSpec;
+
+    final HardwareLayerPolicy mLayerPolicy = new HardwareLayerPolicy();
+
+    /**
+     * 外部指定的ScrollEdgeDetector，为null时按mContentView从注册表中查找
+     */
+    ScrollEdgeDetector mScrollEdgeDetector;
+    private ScrollEdgeDetector mResolvedDetector;
+    private View mResolvedDetectorView;
+    /**
+     * 本次触摸事件中已经计算过的canScrollXxx结果，按方向位存储，每个事件开始时清空
+     */
+    private int mScrollCacheMask;
+    private int mScrollCacheValue;
+
+    /**
+     * 内容在本次手势中已经开始处理(如ViewPager开始翻页)，不再尝试拦截，直到下一次ACTION_DOWN
+     */
+    boolean mContentClaimedGesture;
+
+    private final Runnable mEdgeLayoutCallback = new Runnable() {
+        @Override
+        public void run() {
+            mEdgeLayoutScheduled = false;
+            relayoutEdgeViews();
+        }
+    };
+
+
+    public BaseSwipeLayout(@NonNull Context context, @NonNull View contentView, int directionMask) {
+        super(context);
+        mMinFlingVelocity = ViewConfiguration.get(context).getScaledMinimumFlingVelocity();
+        mContentView = contentView;
+        mDirectionMask = directionMask;
+        if (null == contentView.getParent()) {
+            addView(contentView);
+        }
+        enableSwipe = true;
+    }
+
+    public BaseSwipeLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        mMinFlingVelocity = ViewConfiguration.get(context).getScaledMinimumFlingVelocity();
+
+        TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.SwipeToRefreshLayout);
+        contentLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_contentLayoutId, View.NO_ID);
+        mLeftLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_leftView, View.NO_ID);
+        mTopLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_topView, View.NO_ID);
+        mRightLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_rightView, View.NO_ID);
+        mBottomLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_bottomView, View.NO_ID);
+
+        //颜色不再生成纯色View，而是作为边缘Drawable绘制
+        if (ta.hasValue(R.styleable.SwipeToRefreshLayout_leftColor))
+            setEdgeDrawable(LEFT, new ColorDrawable(ta.getColor(R.styleable.SwipeToRefreshLayout_leftColor, 0)));
+        if (ta.hasValue(R.styleable.SwipeToRefreshLayout_topColor))
+            setEdgeDrawable(TOP, new ColorDrawable(ta.getColor(R.styleable.SwipeToRefreshLayout_topColor, 0)));
+        if (ta.hasValue(R.styleable.SwipeToRefreshLayout_rightColor))
+            setEdgeDrawable(RIGHT, new ColorDrawable(ta.getColor(R.styleable.SwipeToRefreshLayout_rightColor, 0)));
+        if (ta.hasValue(R.styleable.SwipeToRefreshLayout_bottomColor))
+            setEdgeDrawable(BOTTOM, new ColorDrawable(ta.getColor(R.styleable.SwipeToRefreshLayout_bottomColor, 0)));
+
+        mDirectionMask = ta.getInt(R.styleable.SwipeToRefreshLayout_swipeDirection, mDirectionMask);
+        mHorizontalFactor = ta.getFloat(R.styleable.SwipeToRefreshLayout_horizontalRangeFactor, 0.3f);
+        mVerticalFactor = ta.getFloat(R.styleable.SwipeToRefreshLayout_verticalRangeFactor, mHorizontalFactor);
+        mLazyEdgeViews = ta.getBoolean(R.styleable.SwipeToRefreshLayout_lazyEdgeViews, false);
+        ta.recycle();
+
+        if (!mLazyEdgeViews) {
+            mLeftView = createEdgeView(mLeftLayoutId);
+            mTopView = createEdgeView(mTopLayoutId);
+            mRightView = createEdgeView(mRightLayoutId);
+            mBottomView = createEdgeView(mBottomLayoutId);
+        }
+        enableSwipe = true;
+    }
+
+    private View createEdgeView(int layoutId) {
+        if (View.NO_ID == layoutId) return null;
+        View view = LayoutInflater.from(getContext()).inflate(layoutId, this, false);
+        addView(view);
+        return view;
+    }
+
+    @Override
+    protected void onFinishInflate() {
+        super.onFinishInflate();
+        if (null != mContentView) {
+            return;
+        }
+        if (View.NO_ID != contentLayoutId) {
+            mContentView = findViewById(contentLayoutId);
+            if (null != mContentView) return;
+        }
+        for (int i = 0; i < getChildCount(); i++) {//判断是否是addView进来的，不是的话默认其为首选的View,就可以不设置contentLayoutId了,如果没有就抛异常
+            View v = getChildAt(i);
+            if (v == mLeftView || v == mTopView || v == mRightView || v == mBottomView) {
+                continue;
+            }
+            mContentView = v;
+            return;
+        }
+        throw new IllegalStateException("请为" + getClass().getSimpleName() + "添加contentLayoutId属性，以索引目标View");
+    }
+
+    public void setTopView(View view) {
+        setEdgeView(TOP, view);
+    }
+
+    public void setBottomView(View view) {
+        setEdgeView(BOTTOM, view);
+    }
+
+    public void setLeftView(View view) {
+        setEdgeView(LEFT, view);
+    }
+
+    public void setRightView(View view) {
+        setEdgeView(RIGHT, view);
+    }
+
+    View getEdgeView(@SwipeDirection int direction) {
+        switch (direction) {
+            case LEFT:
+                return mLeftView;
+            case TOP:
+                return mTopView;
+            case RIGHT:
+                return mRightView;
+            case BOTTOM:
+                return mBottomView;
+            default:
+                return null;
+        }
+    }
+
+    private void assignEdgeView(@SwipeDirection int direction, View view) {
+        switch (direction) {
+            case LEFT:
+                mLeftView = view;
+                break;
+            case TOP:
+                mTopView = view;
+                break;
+            case RIGHT:
+                mRightView = view;
+                break;
+            case BOTTOM:
+                mBottomView = view;
+                break;
+        }
+    }
+
+    void setEdgeView(@SwipeDirection int direction, View view) {
+        View old = getEdgeView(direction);
+        if (view != null && view != old) {
+            if (null != old) {
+                removeView(old);
+                onEdgeViewRemoved(old);
+            }
+            if (null == view.getLayoutParams()) {
+                view.setLayoutParams(new MarginLayoutParams(MarginLayoutParams.MATCH_PARENT, MarginLayoutParams.MATCH_PARENT));
+            }
+            assignEdgeView(direction, view);
+            addView(view);
+        }
+    }
+
+    /**
+     * 设置direction方向的边缘Drawable，拖拽时绘制在mContentView让出的区域，位于边缘View之下
+     * 颜色、渐变、简单的指示器都可以用Drawable实现而不必添加子View；
+     * level会被设置为展开距离占拖拽范围的比例(0~10000)，可配合ClipDrawable、RotateDrawable等使用
+     *
+     * @param direction SwipeDirection
+     * @param drawable  null表示移除
+     */
+    public void setEdgeDrawable(@SwipeDirection int direction, Drawable drawable) {
+        Drawable old = getEdgeDrawable(direction);
+        if (old == drawable) return;
+        if (null != old) old.setCallback(null);
+        switch (direction) {
+            case LEFT:
+                mLeftDrawable = drawable;
+                break;
+            case TOP:
+                mTopDrawable = drawable;
+                break;
+            case RIGHT:
+                mRightDrawable = drawable;
+                break;
+            case BOTTOM:
+                mBottomDrawable = drawable;
+                break;
+            default:
+                return;
+        }
+        if (null != drawable) drawable.setCallback(this);
+        invalidate();
+    }
+
+    Drawable getEdgeDrawable(@SwipeDirection int direction) {
+        switch (direction) {
+            case LEFT:
+                return mLeftDrawable;
+            case TOP:
+                return mTopDrawable;
+            case RIGHT:
+                return mRightDrawable;
+            case BOTTOM:
+                return mBottomDrawable;
+            default:
+                return null;
+        }
+    }
+
+    private boolean hasEdgeDrawables() {
+        return null != mLeftDrawable || null != mTopDrawable || null != mRightDrawable || null != mBottomDrawable;
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return super.verifyDrawable(who)
+                || who == mLeftDrawable || who == mTopDrawable || who == mRightDrawable || who == mBottomDrawable;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (null != mContentView && hasEdgeDrawables()) {
+            //按内容的视觉位置计算露出区域，overlay等平移了内容的情况下也正确
+            int left = mContentView.getLeft() + (int) ViewCompat.getTranslationX(mContentView);
+            int top = mContentView.getTop() + (int) ViewCompat.getTranslationY(mContentView);
+            int right = left + mContentView.getWidth();
+            int bottom = top + mContentView.getHeight();
+            int horizontalRange = (int) (mHorizontalDragRange * mHorizontalFactor);
+            int verticalRange = (int) (mVerticalDragRange * mVerticalFactor);
+            if (left > mOriginX)
+                drawEdgeDrawable(canvas, mLeftDrawable, left - mOriginX, horizontalRange,
+                        getPaddingLeft(), getPaddingTop(), left, getHeight() - getPaddingBottom());
+            if (left < mOriginX)
+                drawEdgeDrawable(canvas, mRightDrawable, mOriginX - left, horizontalRange,
+                        right, getPaddingTop(), getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+            if (top > mOriginY)
+                drawEdgeDrawable(canvas, mTopDrawable, top - mOriginY, verticalRange,
+                        getPaddingLeft(), getPaddingTop(), getWidth() - getPaddingRight(), top);
+            if (top < mOriginY)
+                drawEdgeDrawable(canvas, mBottomDrawable, mOriginY - top, verticalRange,
+                        getPaddingLeft(), bottom, getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    private static void drawEdgeDrawable(Canvas canvas, Drawable drawable, int offset, int range,
+                                         int l, int t, int r, int b) {
+        if (null == drawable || r <= l || b <= t) return;
+        drawable.setBounds(l, t, r, b);
+        drawable.setLevel(range <= 0 ? 10000 : Math.min(10000, offset * 10000 / range));
+        drawable.draw(canvas);
+    }
+
+    /**
+     * 将direction方向的边缘View移除并放回复用池，通常在RecyclerView的item被回收时调用
+     *
+     * @param direction SwipeDirection
+     * @param pool      复用池
+     * @param type      View类型
+     */
+    public void recycleEdgeView(@SwipeDirection int direction, @NonNull EdgeViewPool pool, int type) {
+        View view = getEdgeView(direction);
+        if (null == view) return;
+        assignEdgeView(direction, null);
+        //池满时put会丢弃View，先移除避免它作为未登记的子View留在布局中
+        removeView(view);
+        onEdgeViewRemoved(view);
+        pool.put(type, view);
+    }
+
+    /**
+     * 边缘View被移除时调用
+     */
+    void onEdgeViewRemoved(View view) {
+    }
+
+    /**
+     * lazyEdgeViews模式下，第一次需要direction方向的边缘View时才inflate，
+     * 使用addViewInLayout避免requestLayout把拖拽中的mContentView复位
+     *
+     * @param direction SwipeDirection
+     */
+    void ensureEdgeView(@SwipeDirection int direction) {
+        if (!mLazyEdgeViews || null != getEdgeView(direction)) return;
+        int layoutId;
+        switch (direction) {
+            case LEFT:
+                layoutId = mLeftLayoutId;
+                break;
+            case TOP:
+                layoutId = mTopLayoutId;
+                break;
+            case RIGHT:
+                layoutId = mRightLayoutId;
+                break;
+            case BOTTOM:
+                layoutId = mBottomLayoutId;
+                break;
+            default:
+                return;
+        }
+        if (View.NO_ID == layoutId) return;
+        View view = LayoutInflater.from(getContext()).inflate(layoutId, this, false);
+        addViewInLayout(view, -1, view.getLayoutParams(), true);
+        assignEdgeView(direction, view);
+        measureEdgeViewsForContent();
+        layoutEdgeView(view, direction, (MarginLayoutParams) mContentView.getLayoutParams());
+    }
+
+    public void setDamping(float damping) {
+        this.damping = damping;
+    }
+
+    /**
+     * 设置拖动百分比限制
+     *
+     * @param factor
+     */
+    public void setFactor(float factor) {
+        this.mHorizontalFactor = factor;
+        this.mVerticalFactor = factor;
+    }
+
+    /**
+     * 设置拖动百分比限制
+     *
+     * @param mHorizontalFactor
+     */
+    public void setHorizontalFactor(float mHorizontalFactor) {
+        this.mHorizontalFactor = mHorizontalFactor;
+    }
+
+    /**
+     * 设置拖动百分比限制
+     *
+     * @param mVerticalFactor
+     */
+    public void setVerticalFactor(float mVerticalFactor) {
+        this.mVerticalFactor = mVerticalFactor;
+    }
+
+    public void enableSwipe(boolean enableSwipe) {
+        this.enableSwipe = enableSwipe;
+    }
+
+    /**
+     * 拖拽和自动滑动期间是否把mContentView提升为硬件层，默认开启
+     * 满足条件才会提升，见{@link HardwareLayerPolicy}
+     *
+     * @param enabled         是否开启
+     * @param includeEdgeView 是否同时提升当前方向的边缘View，边缘View有进度动画时不建议开启
+     */
+    public void setHardwareLayerPromotion(boolean enabled, boolean includeEdgeView) {
+        mLayerPolicy.mEnabled = enabled;
+        mLayerPolicy.mIncludeEdgeView = includeEdgeView;
+        if (!enabled) mLayerPolicy.demoteAll();
+    }
+
+    /**
+     * 添加可以direction划动
+     *
+     * @param direction SwipeDirection
+     */
+    public void enableDragDirection(int direction) {
+        if ((mDirectionMask & direction) == direction) return;
+        mDirectionMask |= direction;
+        //禁用方向的边缘View不参与测量，重新启用后需要补测
+        requestLayout();
+    }
+
+    /**
+     * 删除可以direction划动
+     *
+     * @param direction SwipeDirection
+     */
+    public void disableDragDirection(int direction) {
+        mDirectionMask &= ~direction;
+    }
+
+    /**
+     * 是否禁用了direction
+     *
+     * @param direction SwipeDirection 禁用了该方向
+     * @return boolean
+     */
+    public boolean isNotAllowDragDirection(int direction) {
+        return (mDirectionMask & direction) == 0;
+    }
+
+    /**
+     * 判断是否可以direction这个方向的划动
+     *
+     * @param direction DragDirection
+     * @return boolean
+     */
+    boolean isAllowDragDirection(int direction) {
+        return direction == (mDirectionMask & direction);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mHorizontalDragRange = w;
+        mVerticalDragRange = h;
+    }
+
+    /**
+     * 计算所有ChildView的宽度和高度 然后根据ChildView的计算结果，设置自己的宽和高
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        /**
+         * 获得此ViewGroup上级容器为其推荐的宽和高，以及计算模式
+         */
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        mLastWidthMeasureSpec = widthMeasureSpec;
+        mLastHeightMeasureSpec = heightMeasureSpec;
+
+        // 边缘View统一在measureEdgeViews中测量，这里只测量其余的childView，避免重复测量
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE && !isEdgeView(child)) {
+                measureChild(child, widthMeasureSpec, heightMeasureSpec);
+            }
+        }
+
+        /**
+         * 根据childView计算的出的宽和高，以及设置的margin计算容器的宽和高，主要用于容器是warp_content时
+         */
+        MarginLayoutParams cMarginParams = (MarginLayoutParams) mContentView.getLayoutParams();
+
+        /**
+         * 记录如果是wrap_content是设置的宽和高
+         */
+        int width = cMarginParams.leftMargin + mContentView.getMeasuredWidth() + cMarginParams.rightMargin;
+        int height = cMarginParams.topMargin + mContentView.getMeasuredHeight() + cMarginParams.bottomMargin;
+
+        measureEdgeViews(width, height);
+
+        setMeasuredDimension(widthMode == MeasureSpec.EXACTLY ? widthSize : width, heightMode == MeasureSpec.EXACTLY ? heightSize : height);
+    }
+
+    /**
+     * 测量边缘View，默认与其他childView一样按父容器的spec测量
+     *
+     * @param width  mContentView加上margin的宽
+     * @param height mContentView加上margin的高
+     */
+    void measureEdgeViews(int width, int height) {
+        if (shouldMeasureEdgeView(mLeftView, LEFT))
+            measureChild(mLeftView, mLastWidthMeasureSpec, mLastHeightMeasureSpec);
+        if (shouldMeasureEdgeView(mTopView, TOP))
+            measureChild(mTopView, mLastWidthMeasureSpec, mLastHeightMeasureSpec);
+        if (shouldMeasureEdgeView(mRightView, RIGHT))
+            measureChild(mRightView, mLastWidthMeasureSpec, mLastHeightMeasureSpec);
+        if (shouldMeasureEdgeView(mBottomView, BOTTOM))
+            measureChild(mBottomView, mLastWidthMeasureSpec, mLastHeightMeasureSpec);
+    }
+
+    /**
+     * 不存在、GONE或方向被禁用的边缘View不测量
+     */
+    boolean shouldMeasureEdgeView(View view, @SwipeDirection int direction) {
+        return null != view && view.getVisibility() != GONE && isAllowDragDirection(direction);
+    }
+
+    private void measureEdgeViewsForContent() {
+        MarginLayoutParams cMarginParams = (MarginLayoutParams) mContentView.getLayoutParams();
+        measureEdgeViews(cMarginParams.leftMargin + mContentView.getMeasuredWidth() + cMarginParams.rightMargin,
+                cMarginParams.topMargin + mContentView.getMeasuredHeight() + cMarginParams.bottomMargin);
+    }
+
+    boolean isEdgeView(View view) {
+        return view == mLeftView || view == mTopView || view == mRightView || view == mBottomView;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        /**mContentView*/
+        MarginLayoutParams marginLayoutParams = (MarginLayoutParams) mContentView.getLayoutParams();
+        int cl = marginLayoutParams.leftMargin;
+        int ct = marginLayoutParams.topMargin;
+        int cr = cl + mContentView.getMeasuredWidth() - marginLayoutParams.leftMargin - marginLayoutParams.rightMargin;
+        int cb = ct + mContentView.getMeasuredHeight();
+        //拖拽、展开、刷新中保留mContentView当前的偏移，尺寸等真实变化照常生效
+        int offsetX = 0, offsetY = 0;
+        if (isLayoutFrozen()) {
+            offsetX = mContentView.getLeft() - mOriginX;
+            offsetY = mContentView.getTop() - mOriginY;
+        }
+        mContentView.layout(cl + offsetX, ct + offsetY, cr + offsetX, cb + offsetY);
+        mOriginX = cl;
+        mOriginY = ct;
+
+        layoutEdgeView(mLeftView, LEFT, marginLayoutParams);
+        layoutEdgeView(mRightView, RIGHT, marginLayoutParams);
+        layoutEdgeView(mTopView, TOP, marginLayoutParams);
+        layoutEdgeView(mBottomView, BOTTOM, marginLayoutParams);
+    }
+
+    /**
+     * 拖拽、自动滑动中或mContentView不在原点(展开、刷新中)时处于冻结状态，
+     * 此时布局会保留mContentView的偏移，边缘View内部的requestLayout只在本地处理
+     */
+    boolean isLayoutFrozen() {
+        return null != mContentView
+                && (null != mViewDragHelper && mViewDragHelper.getViewDragState() != ViewDragHelper.STATE_IDLE
+                || !isContentAtOrigin());
+    }
+
+    /**
+     * 冻结期间只有边缘View请求布局时(如header里setText)，不向上传递，
+     * 在下一帧只重新测量、摆放边缘View，避免整棵树重新布局
+     */
+    @Override
+    public void requestLayout() {
+        if (!isLayoutRequested() && isLayoutFrozen() && !mContentView.isLayoutRequested() && isEdgeLayoutRequested()) {
+            mPendingLayout = true;
+            if (!mEdgeLayoutScheduled) {
+                mEdgeLayoutScheduled = true;
+                ViewCompat.postOnAnimation(this, mEdgeLayoutCallback);
+            }
+            return;
+        }
+        super.requestLayout();
+    }
+
+    private boolean isEdgeLayoutRequested() {
+        return null != mLeftView && mLeftView.isLayoutRequested()
+                || null != mTopView && mTopView.isLayoutRequested()
+                || null != mRightView && mRightView.isLayoutRequested()
+                || null != mBottomView && mBottomView.isLayoutRequested();
+    }
+
+    void relayoutEdgeViews() {
+        if (isLayoutRequested()) return;//已经有完整的布局在排队
+        measureEdgeViewsForContent();
+        layoutEdgeViews(NONE);
+        invalidate();
+    }
+
+    /**
+     * 解冻后补上冻结期间被本地处理的布局请求
+     */
+    void applyPendingLayout() {
+        if (mPendingLayout && !isLayoutFrozen()) {
+            mPendingLayout = false;
+            requestLayout();
+        }
+    }
+
+    /**
+     * 不做动画，直接把mContentView放回原点
+     */
+    void resetContentOffset() {
+        if (null == mContentView || isContentAtOrigin()) return;
+        moveContentTo(NONE, 0);
+    }
+
+    /**
+     * 不做动画，直接把mContentView放到direction方向offset距离处
+     */
+    void moveContentTo(@SwipeDirection int direction, int offset) {
+        ViewCompat.offsetLeftAndRight(mContentView, offsetToLeft(direction, offset) - mContentView.getLeft());
+        ViewCompat.offsetTopAndBottom(mContentView, offsetToTop(direction, offset) - mContentView.getTop());
+        layoutEdgeViews(NONE);
+        invalidate();
+    }
+
+    /**
+     * 根据mContentView当前位置摆放边缘View
+     */
+    void layoutEdgeView(View view, @SwipeDirection int direction, MarginLayoutParams marginLayoutParams) {
+        if (null == view) return;
+        MarginLayoutParams otherParams = (MarginLayoutParams) view.getLayoutParams();
+        int cl, ct, cr, cb;
+        switch (direction) {
+            case LEFT:
+                cl = mContentView.getLeft() - marginLayoutParams.leftMargin - (otherParams.leftMargin + view.getMeasuredWidth() + otherParams.rightMargin);
+                ct = mContentView.getTop() + otherParams.topMargin;
+                cr = mContentView.getLeft() - marginLayoutParams.leftMargin - otherParams.rightMargin;
+                cb = mContentView.getBottom() - otherParams.bottomMargin;
+                break;
+            case RIGHT:
+                cl = mContentView.getRight() + marginLayoutParams.rightMargin + otherParams.leftMargin;
+                ct = mContentView.getTop() + otherParams.topMargin;
+                cr = mContentView.getRight() + marginLayoutParams.rightMargin + otherParams.leftMargin + view.getMeasuredWidth() + otherParams.rightMargin;
+                cb = mContentView.getBottom() - otherParams.bottomMargin;
+                break;
+            case TOP:
+                cl = mContentView.getLeft() + otherParams.leftMargin;
+                ct = mContentView.getTop() - marginLayoutParams.topMargin - view.getMeasuredHeight() - otherParams.topMargin - otherParams.bottomMargin;
+                cr = mContentView.getRight() - otherParams.rightMargin;
+                cb = mContentView.getTop() - marginLayoutParams.topMargin - otherParams.bottomMargin;
+                break;
+            case BOTTOM:
+                cl = mContentView.getLeft() + otherParams.leftMargin;
+                ct = mContentView.getBottom() + marginLayoutParams.bottomMargin + otherParams.topMargin;
+                cr = mContentView.getRight() - otherParams.rightMargin;
+                cb = mContentView.getBottom() + marginLayoutParams.bottomMargin + otherParams.topMargin + view.getMeasuredHeight() + otherParams.bottomMargin;
+                break;
+            default:
+                return;
+        }
+        //尺寸不变且没有布局请求时只平移，避免拖拽的每一帧都触发边缘View整棵子树的onLayout
+        if (!view.isLayoutRequested() && view.getWidth() == cr - cl && view.getHeight() == cb - ct) {
+            ViewCompat.offsetLeftAndRight(view, cl - view.getLeft());
+            ViewCompat.offsetTopAndBottom(view, ct - view.getTop());
+        } else {
+            view.layout(cl, ct, cr, cb);
+        }
+    }
+
+    /**
+     * 拖拽过程中让边缘View跟随mContentView
+     *
+     * @param direction 当前方向，NONE时全部摆放
+     */
+    void layoutEdgeViews(@SwipeDirection int direction) {
+        MarginLayoutParams marginLayoutParams = (MarginLayoutParams) mContentView.getLayoutParams();
+        if (direction != TOP && direction != BOTTOM) {
+            layoutEdgeView(mLeftView, LEFT, marginLayoutParams);
+            layoutEdgeView(mRightView, RIGHT, marginLayoutParams);
+        }
+        if (direction != LEFT && direction != RIGHT) {
+            layoutEdgeView(mTopView, TOP, marginLayoutParams);
+            layoutEdgeView(mBottomView, BOTTOM, marginLayoutParams);
+        }
+    }
+
+    /**
+     * mContentView在direction方向上完全露出边缘View需要移动的距离
+     */
+    int getEdgeExtent(@SwipeDirection int direction) {
+        switch (direction) {
+            case LEFT:
+                return null == mLeftView ? 0 : mContentView.getLeft() - mLeftView.getLeft();
+            case RIGHT:
+                return null == mRightView ? 0 : mRightView.getRight() - mContentView.getRight();
+            case TOP:
+                return null == mTopView ? 0 : mContentView.getTop() - mTopView.getTop();
+            case BOTTOM:
+                return null == mBottomView ? 0 : mBottomView.getBottom() - mContentView.getBottom();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * mContentView当前在direction方向上偏离原点的距离
+     */
+    int getDragOffset(@SwipeDirection int direction) {
+        switch (direction) {
+            case LEFT:
+                return mContentView.getLeft() - mOriginX;
+            case RIGHT:
+                return mOriginX - mContentView.getLeft();
+            case TOP:
+                return mContentView.getTop() - mOriginY;
+            case BOTTOM:
+                return mOriginY - mContentView.getTop();
+            default:
+                return 0;
+        }
+    }
+
+    boolean isContentAtOrigin() {
+        return mContentView.getLeft() == mOriginX && mContentView.getTop() == mOriginY;
+    }
+
+    private int offsetToLeft(@SwipeDirection int direction, int offset) {
+        return direction == LEFT ? mOriginX + offset : direction == RIGHT ? mOriginX - offset : mOriginX;
+    }
+
+    private int offsetToTop(@SwipeDirection int direction, int offset) {
+        return direction == TOP ? mOriginY + offset : direction == BOTTOM ? mOriginY - offset : mOriginY;
+    }
+
+    /**
+     * 释放后让mContentView滑动到direction方向offset距离处
+     */
+    boolean settleContentAt(@SwipeDirection int direction, int offset) {
+        if (obtainDragHelper().settleCapturedViewAt(offsetToLeft(direction, offset), offsetToTop(direction, offset))) {
+            ViewCompat.postInvalidateOnAnimation(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 非拖拽状态下让mContentView滑动到direction方向offset距离处
+     */
+    boolean smoothSlideContentTo(@SwipeDirection int direction, int offset) {
+        if (obtainDragHelper().smoothSlideViewTo(mContentView, offsetToLeft(direction, offset), offsetToTop(direction, offset))) {
+            ViewCompat.postInvalidateOnAnimation(this);
+            return true;
+        }
+        return false;
+    }
+
+    ViewDragHelper obtainDragHelper() {
+        if (null == mViewDragHelper) {
+            mViewDragHelper = ViewDragHelper.create(this, 1.0f, new DragCallback());
+        }
+        return mViewDragHelper;
+    }
+
+    /**
+     * 手指释放
+     *
+     * @param xvel x方向速度
+     * @param yvel y方向速度
+     */
+    abstract void onContentReleased(float xvel, float yvel);
+
+    /**
+     * mContentView位置改变，边缘View已经摆放完毕
+     */
+    void onContentPositionChanged(int left, int top, int dx, int dy) {
+    }
+
+    /**
+     * ViewDragHelper的拖拽状态改变
+     *
+     * @param state ViewDragHelper.STATE_IDLE、STATE_DRAGGING、STATE_SETTLING
+     */
+    void onDragStateChanged(int state) {
+    }
+
+    /**
+     * 拖拽中的每次移动，决定是否由direction方向的边缘View处理
+     * 默认在内容不能继续朝该方向滚动时处理；已展开时direction为展开方向，contentCanScroll为false
+     *
+     * @param direction        SwipeDirection
+     * @param offset           限制后的展开距离，朝展开方向为正
+     * @param contentCanScroll 内容是否还能朝该方向滚动
+     * @return true 移动内容露出边缘View，false 内容保持不动
+     */
+    boolean onEdgeMove(@SwipeDirection int direction, int offset, boolean contentCanScroll) {
+        return !contentCanScroll;
+    }
+
+    /**
+     * 从mContentView以外的子View(通常是露出的边缘View)开始的拖拽是否改为拖动mContentView，默认不拖动
+     */
+    boolean shouldDragContentFrom(View child) {
+        return false;
+    }
+
+    /**
+     * 拖拽开始作用于direction方向的边缘View
+     */
+    void onDirectionEngaged(@SwipeDirection int direction) {
+    }
+
+
+    /**
+     * 拖拽确定作用于direction方向：方向已允许且{@link #onEdgeMove}接受，此时才inflate延迟的边缘View
+     */
+    private void engageDirection(@SwipeDirection int direction) {
+        ensureEdgeView(direction);
+        onDirectionEngaged(direction);
+    }
+
+    class DragCallback extends ViewDragHelper.Callback {
+        int mLastDragState;
+
+        @Override
+        public boolean tryCaptureView(View child, int pointerId) {
+            if (!enableSwipe) return false;
+            if (child == mContentView) return true;
+            if (shouldDragContentFrom(child)) {
+                //改为捕获mContentView，返回false后ViewDragHelper仍按已进入拖拽处理
+                mViewDragHelper.captureChildView(mContentView, pointerId);
+            }
+            return false;
+        }
+
+        @Override
+        public void onViewReleased(View releasedChild, float xvel, float yvel) {
+            super.onViewReleased(releasedChild, xvel, yvel);
+            mVelocityEstimator.computeVelocity();
+            onContentReleased(mVelocityEstimator.getXVelocity(), mVelocityEstimator.getYVelocity());
+        }
+
+        @Override
+        public void onViewPositionChanged(View changedView, int left, int top, int dx, int dy) {
+            super.onViewPositionChanged(changedView, left, top, dx, dy);
+            layoutEdgeViews(mCurrentDirection);
+            //内容只是移动了位置，硬件加速下父View不会重绘，需要主动刷新露出区域的Drawable
+            if (hasEdgeDrawables()) invalidate();
+            onContentPositionChanged(left, top, dx, dy);
+        }
+
+        @Override
+        public void onViewDragStateChanged(int state) {
+            super.onViewDragStateChanged(state);
+            if (mLastDragState == ViewDragHelper.STATE_SETTLING && state == ViewDragHelper.STATE_DRAGGING && mLockDirection == NONE) {
+                smoothSlideContentTo(NONE, 0);
+            }
+            if (state == ViewDragHelper.STATE_IDLE) {
+                mLayerPolicy.demoteAll();
+            } else {
+                mLayerPolicy.promote(mContentView);
+                if (mLayerPolicy.mIncludeEdgeView) mLayerPolicy.promote(getEdgeView(mCurrentDirection));
+            }
+            onDragStateChanged(state);
+            if (state == ViewDragHelper.STATE_IDLE) {
+                mCurrentDirection = NONE;
+                applyPendingLayout();
+            }
+            mLastDragState = state;
+        }
+
+        @Override
+        public int getViewHorizontalDragRange(View child) {
+            return (int) (mHorizontalDragRange * mHorizontalFactor);
+        }
+
+        @Override
+        public int getViewVerticalDragRange(View child) {
+            return (int) (mVerticalDragRange * mVerticalFactor);
+        }
+
+        @Override
+        public int clampViewPositionHorizontal(View child, int left, int dx) {
+            if (child != mContentView) {
+                //ViewDragHelper在捕获前用按下的子View检查能否移动，能改为拖动mContentView时按mContentView计算
+                if (!shouldDragContentFrom(child)) return child.getLeft();
+                int shift = mContentView.getLeft() - child.getLeft();
+                return clampViewPositionHorizontal(mContentView, left + shift, dx) - shift;
+            }
+            int result = mOriginX;
+            int range = getViewHorizontalDragRange(child);
+            if (mLockDirection == NONE) {
+                if (mCurrentDirection == LEFT
+                        && left >= mOriginX
+                        && isAllowDragDirection(LEFT)) {
+                    int clamped = DragMath.clamp(left, mOriginX, range, true, dx, damping);
+                    if (onEdgeMove(LEFT, clamped - mOriginX, cachedCanScroll(RIGHT))) {
+                        engageDirection(LEFT);
+                        result = clamped;
+                    }
+                } else if (mCurrentDirection == RIGHT
+                        && left <= mOriginX
+                        && isAllowDragDirection(RIGHT)) {
+                    int clamped = DragMath.clamp(left, mOriginX, range, false, dx, damping);
+                    if (onEdgeMove(RIGHT, mOriginX - clamped, cachedCanScroll(LEFT))) {
+                        engageDirection(RIGHT);
+                        result = clamped;
+                    }
+                }
+            } else if ((mLockDirection == LEFT || mLockDirection == RIGHT)
+                    && mCurrentDirection != TOP && mCurrentDirection != BOTTOM) {
+                int clamped = DragMath.clamp(left, mOriginX, range, DragMath.isPositive(mLockDirection), dx, damping);
+                result = onEdgeMove(mLockDirection, Math.abs(clamped - mOriginX), false) ? clamped : child.getLeft();
+            } else {
+                result = child.getLeft();
+            }
+            return result;
+        }
+
+        @Override
+        public int clampViewPositionVertical(View child, int top, int dy) {
+            if (child != mContentView) {
+                if (!shouldDragContentFrom(child)) return child.getTop();
+                int shift = mContentView.getTop() - child.getTop();
+                return clampViewPositionVertical(mContentView, top + shift, dy) - shift;
+            }
+            int result = mOriginY;
+            int range = getViewVerticalDragRange(child);
+            if (mLockDirection == NONE) {
+                if (mCurrentDirection == TOP
+                        && top >= mOriginY
+                        && isAllowDragDirection(TOP)) {
+                    int clamped = DragMath.clamp(top, mOriginY, range, true, dy, damping);
+                    if (onEdgeMove(TOP, clamped - mOriginY, cachedCanScroll(BOTTOM))) {
+                        engageDirection(TOP);
+                        result = clamped;
+                    }
+                } else if (mCurrentDirection == BOTTOM
+                        && top <= mOriginY
+                        && isAllowDragDirection(BOTTOM)) {
+                    int clamped = DragMath.clamp(top, mOriginY, range, false, dy, damping);
+                    if (onEdgeMove(BOTTOM, mOriginY - clamped, cachedCanScroll(TOP))) {
+                        engageDirection(BOTTOM);
+                        result = clamped;
+                    }
+                }
+            } else if ((mLockDirection == TOP || mLockDirection == BOTTOM)
+                    && mCurrentDirection != LEFT && mCurrentDirection != RIGHT) {
+                int clamped = DragMath.clamp(top, mOriginY, range, DragMath.isPositive(mLockDirection), dy, damping);
+                result = onEdgeMove(mLockDirection, Math.abs(clamped - mOriginY), false) ? clamped : child.getTop();
+            } else {
+                result = child.getTop();
+            }
+            return result;
+        }
+    }
+
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mLayerPolicy.demoteAll();
+    }
+
+    @Override
+    public void computeScroll() {
+        if (null != mViewDragHelper && mViewDragHelper.continueSettling(true)) {
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+    }
+
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            mContentClaimedGesture = false;
+        } else if (mContentClaimedGesture) {
+            mCurrentDirection = NONE;
+            return false;
+        }
+        boolean handled = false;
+        if (isEnabled()) {
+            calculateForCurrentDirection(event);
+            handled = mContentView != null && obtainDragHelper().shouldInterceptTouchEvent(event);
+        } else if (null != mViewDragHelper) {
+            mViewDragHelper.cancel();
+        }
+        if (!handled) {
+            mCurrentDirection = NONE;
+        }
+        return handled || super.onInterceptTouchEvent(event);
+    }
+
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (isEnabled()) {//对于非scroll视图或者view（ViewGroup在onInterceptTouchEvent方法中判断）
+            calculateForCurrentDirection(event);
+        }
+        obtainDragHelper().processTouchEvent(event);
+        return true;
+    }
+
+
+    void calculateForCurrentDirection(MotionEvent event) {
+        mScrollCacheMask = 0;
+        mTouchX = event.getRawX();
+        mTouchY = event.getRawY();
+        final int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) mVelocityEstimator.clear();
+        //历史采样只有相对坐标，换算到raw坐标
+        float offsetX = mTouchX - event.getX();
+        float offsetY = mTouchY - event.getY();
+        for (int i = 0, size = event.getHistorySize(); i < size; i++) {
+            mVelocityEstimator.addSample(event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY,
+                    event.getHistoricalEventTime(i));
+        }
+        mVelocityEstimator.addSample(mTouchX, mTouchY, event.getEventTime());
+        if (mCurrentDirection == NONE) {
+            switch (action) {
+                case MotionEvent.ACTION_DOWN:
+                    downX = mTouchX;
+                    downY = mTouchY;
+                    lastDownLeft = mContentView.getLeft();
+                    lastDownTop = mContentView.getTop();
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    mCurrentDirection = DragMath.classifyDirection(mTouchX - downX, mTouchY - downY);
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * 支持margin设置，直接使用系统的MarginLayoutParams
+     */
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(LayoutParams p) {
+        return new MarginLayoutParams(p);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(LayoutParams p) {
+        return p instanceof MarginLayoutParams;
+    }
+
+
+    /**
+     * 指定mContentView的滚动边界判断，null表示使用{@link ScrollEdgeDetectors}中匹配的实现
+     */
+    public void setScrollEdgeDetector(ScrollEdgeDetector detector) {
+        this.mScrollEdgeDetector = detector;
+        mResolvedDetectorView = null;
+        mScrollCacheMask = 0;
+    }
+
+    /**
+     * 内容已经开始处理本次手势，边缘View没有被拖出时放弃本次手势，见{@link ViewPagerArbiter}
+     */
+    void onContentClaimedGesture() {
+        if (null == mViewDragHelper || mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE) {
+            mContentClaimedGesture = true;
+        }
+    }
+
+    ScrollEdgeDetector getScrollEdgeDetector(View view) {
+        if (null != mScrollEdgeDetector) return mScrollEdgeDetector;
+        if (mResolvedDetectorView != view) {
+            mResolvedDetector = ScrollEdgeDetectors.find(view);
+            mResolvedDetectorView = view;
+        }
+        return mResolvedDetector;
+    }
+
+    /**
+     * 同一个触摸事件中两个clamp回调都会判断mContentView能否滚动，结果只计算一次
+     *
+     * @param which 对应canScrollLeft/Top/Right/Bottom的方向
+     */
+    private boolean cachedCanScroll(@SwipeDirection int which) {
+        if ((mScrollCacheMask & which) == 0) {
+            boolean result;
+            switch (which) {
+                case LEFT:
+                    result = canScrollLeft(mContentView);
+                    break;
+                case TOP:
+                    result = canScrollTop(mContentView);
+                    break;
+                case RIGHT:
+                    result = canScrollRight(mContentView);
+                    break;
+                default:
+                    result = canScrollBottom(mContentView);
+                    break;
+            }
+            mScrollCacheMask |= which;
+            mScrollCacheValue = result ? mScrollCacheValue | which : mScrollCacheValue & ~which;
+        }
+        return (mScrollCacheValue & which) != 0;
+    }
+
+    public boolean canScrollTop(View view) {
+        return getScrollEdgeDetector(view).canScrollVertically(view, 1);
+    }
+
+    public boolean canScrollBottom(View view) {
+        return getScrollEdgeDetector(view).canScrollVertically(view, -1);
+    }
+
+    public boolean canScrollLeft(View view) {
+        return getScrollEdgeDetector(view).canScrollHorizontally(view, 1);
+    }
+
+    public boolean canScrollRight(View view) {
+        return getScrollEdgeDetector(view).canScrollHorizontally(view, -1);
+    }
+
+}
@@ -0,0 +1,81 @@
+package lib.phenix.com.swipetorefresh;
+
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.BOTTOM;
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.LEFT;
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.NONE;
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.RIGHT;
+import static lib.phenix.com.swipetorefresh.BaseSwipeLayout.TOP;
+
+/**
+ * 每个触摸事件都会执行的方向判断和边界计算，不依赖View，不分配对象
+ */
+
+public final class DragMath {
+
+    private DragMath() {
+    }
+
+    /**
+     * 根据按下点到当前点的位移判断拖拽方向
+     *
+     * @return 位移为0时返回NONE，竖直分量不小于水平分量时为TOP/BOTTOM，否则为LEFT/RIGHT
+     */
+    public static int classifyDirection(float dx, float dy) {
+        if (dx == 0 && dy == 0) {
+            return NONE;
+        }
+        if (Math.abs(dy) >= Math.abs(dx)) {
+            return dy >= 0 ? TOP : BOTTOM;
+        }
+        return dx >= 0 ? LEFT : RIGHT;
+    }
+
+    /**
+     * direction方向展开时坐标增大返回true(LEFT、TOP)，减小返回false(RIGHT、BOTTOM)
+     */
+    public static boolean isPositive(int direction) {
+        return direction == LEFT || direction == TOP;
+    }
+
+    /**
+     * direction是否为水平方向(LEFT、RIGHT)
+     */
+    public static boolean isHorizontal(int direction) {
+        return direction == LEFT || direction == RIGHT;
+    }
+
+    /**
+     * 把速度转换为direction方向的展开速度，正值表示朝展开方向
+     */
+    public static float openingVelocity(int direction, float xvel, float yvel) {
+        switch (direction) {
+            case LEFT:
+                return xvel;
+            case RIGHT:
+                return -xvel;
+            case TOP:
+                return yvel;
+            case BOTTOM:
+                return -yvel;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 把position限制在原点和direction方向range距离之间，并按阻尼抵消部分位移
+     *
+     * @param position 期望的坐标
+     * @param origin   原点坐标
+     * @param range    最大拖拽距离
+     * @param positive 展开方向是否为坐标增大方向
+     * @param delta    本次事件的位移
+     * @param damping  阻尼系数，[0, 1)
+     */
+    public static int clamp(int position, int origin, int range, boolean positive, int delta, float damping) {
+        int result = positive
+                ? Math.max(origin, Math.min(position, origin + range))
+                : Math.min(origin, Math.max(position, origin - range));
+        return result - (int) (delta * damping);
+    }
+}
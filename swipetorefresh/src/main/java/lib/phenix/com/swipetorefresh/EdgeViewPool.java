@@ -0,0 +1,94 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.support.v4.view.ViewCompat;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+/**
+ * 边缘View(header/footer等)的复用池，类似RecyclerView.RecycledViewPool
+ * 多个SwipeToRefreshLayout(如RecyclerView的item中)共享同一个池，避免每次bind都重新创建header
+ */
+
+public class EdgeViewPool {
+
+    private static final int DEFAULT_MAX_SCRAP = 5;
+
+    private final SparseArray<ArrayList<View>> mScrap = new SparseArray<>();
+    private final SparseIntArray mMaxScrap = new SparseIntArray();
+
+    /**
+     * 设置某种类型最多缓存的View个数
+     *
+     * @param type 类型
+     * @param max  最大个数
+     */
+    public void setMaxRecycledViews(int type, int max) {
+        mMaxScrap.put(type, max);
+        ArrayList<View> scrap = mScrap.get(type);
+        if (scrap != null) {
+            while (scrap.size() > max) {
+                scrap.remove(scrap.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * 取出一个该类型的View
+     *
+     * @param type 类型
+     * @return 缓存的View，没有则返回null，由调用者自己创建
+     */
+    public View get(int type) {
+        ArrayList<View> scrap = mScrap.get(type);
+        if (scrap == null || scrap.isEmpty()) {
+            return null;
+        }
+        return scrap.remove(scrap.size() - 1);
+    }
+
+    /**
+     * 回收View，View总是先从父View中移除，超过上限的直接丢弃
+     *
+     * @param type 类型
+     * @param view 回收的View
+     */
+    public void put(int type, View view) {
+        if (view == null) return;
+        if (view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+        ArrayList<View> scrap = mScrap.get(type);
+        if (scrap == null) {
+            scrap = new ArrayList<>();
+            mScrap.put(type, scrap);
+        }
+        if (scrap.size() >= mMaxScrap.get(type, DEFAULT_MAX_SCRAP) || scrap.contains(view)) {
+            return;
+        }
+        resetView(view);
+        scrap.add(view);
+    }
+
+    /**
+     * 还原拖拽时设置在View上的属性，并通过OnRefreshListener.onReset()让header还原内部状态
+     */
+    private void resetView(View view) {
+        ViewCompat.setTranslationX(view, 0);
+        ViewCompat.setTranslationY(view, 0);
+        ViewCompat.setScaleX(view, 1);
+        ViewCompat.setScaleY(view, 1);
+        ViewCompat.setAlpha(view, 1);
+        if (view instanceof OnRefreshListener) {
+            ((OnRefreshListener) view).onReset();
+        }
+    }
+
+    public void clear() {
+        mScrap.clear();
+    }
+
+}
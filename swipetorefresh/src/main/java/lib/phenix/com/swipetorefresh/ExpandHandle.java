@@ -0,0 +1,91 @@
+package lib.phenix.com.swipetorefresh;
+
+/**
+ * {@link SwipeToRefreshLayout#expandTop()}等方法的结果，边缘View完全展开时完成
+ * 每个SwipeToRefreshLayout只有一个实例，再次expand会复用它，之前未完成的请求会先以取消结束
+ */
+
+public class ExpandHandle {
+
+    public static final int IDLE = 0;
+    public static final int PENDING = 1;
+    public static final int REVEALED = 2;
+    public static final int CANCELLED = 3;
+
+    private int mStatus = IDLE;
+    private int mDirection = BaseSwipeLayout.NONE;
+    private Callback mCallback;
+
+    public int getStatus() {
+        return mStatus;
+    }
+
+    public boolean isPending() {
+        return mStatus == PENDING;
+    }
+
+    public boolean isRevealed() {
+        return mStatus == REVEALED;
+    }
+
+    /**
+     * 请求展开的方向，SwipeDirection
+     */
+    public int getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * 设置完成回调，已经完成时立即回调，回调后不再持有callback
+     *
+     * @param callback Callback
+     * @return this
+     */
+    public ExpandHandle setCallback(Callback callback) {
+        mCallback = callback;
+        if (mStatus == REVEALED || mStatus == CANCELLED) dispatch();
+        return this;
+    }
+
+    void arm(int direction) {
+        if (mStatus == PENDING) cancel();
+        mCallback = null;
+        mDirection = direction;
+        mStatus = PENDING;
+    }
+
+    void reveal() {
+        if (mStatus != PENDING) return;
+        mStatus = REVEALED;
+        dispatch();
+    }
+
+    void cancel() {
+        if (mStatus != PENDING) return;
+        mStatus = CANCELLED;
+        dispatch();
+    }
+
+    private void dispatch() {
+        Callback callback = mCallback;
+        if (null == callback) return;
+        mCallback = null;
+        if (mStatus == REVEALED) {
+            callback.onRevealed(mDirection);
+        } else {
+            callback.onCancelled(mDirection);
+        }
+    }
+
+    public interface Callback {
+        /**
+         * 边缘View已完全展开，此时已进入LOADING
+         */
+        void onRevealed(int direction);
+
+        /**
+         * 方向被禁用、没有边缘View、被用户拖拽打断或被新的expand替换
+         */
+        void onCancelled(int direction);
+    }
+}
@@ -0,0 +1,134 @@
+package lib.phenix.com.swipetorefresh;
+
+/**
+ * 一次刷新手势(从开始拖拽到回到IDLE)的帧耗时统计，多次手势的累计见{@link GestureMetricsSummary}
+ * 对象会被复用，只在{@link SwipeToRefreshLayout.OnGestureMetricsListener}回调期间有效，需要保留请自行拷贝数值
+ * 每帧预算按手势开始时所在屏幕的刷新率计算，帧间隔超过1.5倍预算视为掉帧，避免把vsync抖动算进去
+ */
+
+public class GestureMetrics {
+
+    /**
+     * 无法获取屏幕刷新率时使用的每帧预算(60fps)
+     */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 16666667L;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    final LatencyHistogram mDragToDraw = newDragToDrawHistogram();
+
+    long mFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+    int mDirection;
+    int mDraggingFrames;
+    int mDraggingJankFrames;
+    int mSettlingFrames;
+    int mSettlingJankFrames;
+    long mReleaseToLoadingMs = -1;
+    long mLoadingToCompletedMs = -1;
+
+    /**
+     * 根据屏幕刷新率计算每帧预算
+     *
+     * @param refreshRate Display.getRefreshRate()，无效值(如模拟器上的0)返回{@link #DEFAULT_FRAME_BUDGET_NANOS}
+     */
+    public static long frameBudgetNanos(float refreshRate) {
+        if (!(refreshRate >= 1)) return DEFAULT_FRAME_BUDGET_NANOS;
+        return Math.round(NANOS_PER_SECOND / (double) refreshRate);
+    }
+
+    static LatencyHistogram newDragToDrawHistogram() {
+        return new LatencyHistogram(1, 2, 4, 8, 12, 16, 24, 32, 48, 64);
+    }
+
+    /**
+     * 本次手势所在屏幕每帧的预算
+     */
+    public long getFrameBudgetNanos() {
+        return mFrameBudgetNanos;
+    }
+
+    /**
+     * 帧间隔超过该值视为掉帧，为每帧预算的1.5倍
+     */
+    public long getJankThresholdNanos() {
+        return mFrameBudgetNanos * 3 / 2;
+    }
+
+    /**
+     * 本次手势作用的方向，SwipeDirection
+     */
+    public int getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * 内容位置改变到下一次绘制之间的耗时，单位毫秒
+     */
+    public LatencyHistogram getDragToDraw() {
+        return mDragToDraw;
+    }
+
+    public int getDraggingFrames() {
+        return mDraggingFrames;
+    }
+
+    /**
+     * 拖拽期间帧间隔超过{@link #getJankThresholdNanos()}的帧数
+     */
+    public int getDraggingJankFrames() {
+        return mDraggingJankFrames;
+    }
+
+    public int getSettlingFrames() {
+        return mSettlingFrames;
+    }
+
+    /**
+     * 自动滑动期间帧间隔超过{@link #getJankThresholdNanos()}的帧数
+     */
+    public int getSettlingJankFrames() {
+        return mSettlingJankFrames;
+    }
+
+    /**
+     * 释放到进入LOADING的耗时，未进入LOADING为-1
+     */
+    public long getReleaseToLoadingMs() {
+        return mReleaseToLoadingMs;
+    }
+
+    /**
+     * LOADING到COMPLETED的耗时，未完成为-1
+     */
+    public long getLoadingToCompletedMs() {
+        return mLoadingToCompletedMs;
+    }
+
+    void reset() {
+        mDragToDraw.reset();
+        mFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+        mDirection = BaseSwipeLayout.NONE;
+        mDraggingFrames = 0;
+        mDraggingJankFrames = 0;
+        mSettlingFrames = 0;
+        mSettlingJankFrames = 0;
+        mReleaseToLoadingMs = -1;
+        mLoadingToCompletedMs = -1;
+    }
+
+    @Override
+    public String toString() {
+        return "GestureMetrics{" +
+                "direction=" + mDirection +
+                ", frameBudgetNanos=" + mFrameBudgetNanos +
+                ", dragToDrawP50=" + mDragToDraw.getPercentile(50) +
+                ", dragToDrawP95=" + mDragToDraw.getPercentile(95) +
+                ", draggingFrames=" + mDraggingFrames +
+                ", draggingJankFrames=" + mDraggingJankFrames +
+                ", settlingFrames=" + mSettlingFrames +
+                ", settlingJankFrames=" + mSettlingJankFrames +
+                ", releaseToLoadingMs=" + mReleaseToLoadingMs +
+                ", loadingToCompletedMs=" + mLoadingToCompletedMs +
+                '}';
+    }
+}
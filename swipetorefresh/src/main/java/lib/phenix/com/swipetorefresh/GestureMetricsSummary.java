@@ -0,0 +1,115 @@
+package lib.phenix.com.swipetorefresh;
+
+/**
+ * 多次手势的{@link GestureMetrics}累计，见{@link SwipeToRefreshLayout#getGestureMetricsSummary()}
+ * 帧数和掉帧数直接相加，每次手势按各自屏幕的预算判断掉帧；耗时合并为直方图
+ */
+
+public class GestureMetricsSummary {
+
+    final LatencyHistogram mDragToDraw = GestureMetrics.newDragToDrawHistogram();
+    final LatencyHistogram mReleaseToLoading = new LatencyHistogram(16, 33, 50, 100, 200, 300, 500, 1000);
+    final LatencyHistogram mLoadingToCompleted = new LatencyHistogram(
+            100, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 8000, 10000, 15000, 30000);
+
+    int mGestures;
+    int mDraggingFrames;
+    int mDraggingJankFrames;
+    int mSettlingFrames;
+    int mSettlingJankFrames;
+
+    void add(GestureMetrics metrics) {
+        mGestures++;
+        mDragToDraw.add(metrics.mDragToDraw);
+        mDraggingFrames += metrics.mDraggingFrames;
+        mDraggingJankFrames += metrics.mDraggingJankFrames;
+        mSettlingFrames += metrics.mSettlingFrames;
+        mSettlingJankFrames += metrics.mSettlingJankFrames;
+        if (metrics.mReleaseToLoadingMs >= 0) mReleaseToLoading.record(metrics.mReleaseToLoadingMs);
+        if (metrics.mLoadingToCompletedMs >= 0) mLoadingToCompleted.record(metrics.mLoadingToCompletedMs);
+    }
+
+    /**
+     * 累计的手势次数
+     */
+    public int getGestures() {
+        return mGestures;
+    }
+
+    /**
+     * 所有手势内容位置改变到下一次绘制之间的耗时，单位毫秒
+     */
+    public LatencyHistogram getDragToDraw() {
+        return mDragToDraw;
+    }
+
+    /**
+     * 进入了LOADING的手势从释放到LOADING的耗时，单位毫秒
+     */
+    public LatencyHistogram getReleaseToLoading() {
+        return mReleaseToLoading;
+    }
+
+    /**
+     * 完成了刷新的手势从LOADING到COMPLETED的耗时，单位毫秒
+     */
+    public LatencyHistogram getLoadingToCompleted() {
+        return mLoadingToCompleted;
+    }
+
+    public int getDraggingFrames() {
+        return mDraggingFrames;
+    }
+
+    public int getDraggingJankFrames() {
+        return mDraggingJankFrames;
+    }
+
+    public int getSettlingFrames() {
+        return mSettlingFrames;
+    }
+
+    public int getSettlingJankFrames() {
+        return mSettlingJankFrames;
+    }
+
+    /**
+     * 拖拽期间的掉帧比例，没有帧时为0
+     */
+    public float getDraggingJankRate() {
+        return mDraggingFrames == 0 ? 0 : (float) mDraggingJankFrames / mDraggingFrames;
+    }
+
+    /**
+     * 自动滑动期间的掉帧比例，没有帧时为0
+     */
+    public float getSettlingJankRate() {
+        return mSettlingFrames == 0 ? 0 : (float) mSettlingJankFrames / mSettlingFrames;
+    }
+
+    public void reset() {
+        mGestures = 0;
+        mDragToDraw.reset();
+        mReleaseToLoading.reset();
+        mLoadingToCompleted.reset();
+        mDraggingFrames = 0;
+        mDraggingJankFrames = 0;
+        mSettlingFrames = 0;
+        mSettlingJankFrames = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "GestureMetricsSummary{" +
+                "gestures=" + mGestures +
+                ", dragToDrawP50=" + mDragToDraw.getPercentile(50) +
+                ", dragToDrawP95=" + mDragToDraw.getPercentile(95) +
+                ", draggingFrames=" + mDraggingFrames +
+                ", draggingJankRate=" + getDraggingJankRate() +
+                ", settlingFrames=" + mSettlingFrames +
+                ", settlingJankRate=" + getSettlingJankRate() +
+                ", releaseToLoadingP50=" + mReleaseToLoading.getPercentile(50) +
+                ", loadingToCompletedP50=" + mLoadingToCompleted.getPercentile(50) +
+                '}';
+    }
+}
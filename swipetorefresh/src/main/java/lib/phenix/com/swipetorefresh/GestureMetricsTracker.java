@@ -0,0 +1,141 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.v4.widget.ViewDragHelper;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * 采集{@link GestureMetrics}，拖拽和自动滑动期间通过Choreographer逐帧统计帧间隔，
+ * 每次手势结束时先累计到{@link GestureMetricsSummary}再回调
+ * 每帧预算在手势开始时按host所在屏幕的刷新率计算，Choreographer需要API 16
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class GestureMetricsTracker implements Choreographer.FrameCallback {
+
+    private static final long NANOS_PER_MS = 1000000L;
+
+    private final GestureMetrics mMetrics = new GestureMetrics();
+    private final View mHost;
+    private final SwipeToRefreshLayout.OnGestureMetricsListener mListener;
+    private final GestureMetricsSummary mSummary;
+
+    private boolean mInGesture;
+    private int mDragState = ViewDragHelper.STATE_IDLE;
+    private long mLastFrameNanos;
+    private long mPendingMoveNanos;
+    private long mReleaseNanos;
+    private long mLoadingNanos;
+
+    GestureMetricsTracker(View host, SwipeToRefreshLayout.OnGestureMetricsListener listener, GestureMetricsSummary summary) {
+        this.mHost = host;
+        this.mListener = listener;
+        this.mSummary = summary;
+    }
+
+    void onDragStateChanged(int state) {
+        if (state != ViewDragHelper.STATE_IDLE && !mInGesture) {
+            mInGesture = true;
+            mMetrics.reset();
+            mMetrics.mFrameBudgetNanos = readFrameBudget();
+        }
+        int lastState = mDragState;
+        mDragState = state;
+        if (state == ViewDragHelper.STATE_IDLE) {
+            stopFrames();
+        } else if (lastState == ViewDragHelper.STATE_IDLE) {
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void onRefreshStateChanged(int state, int direction) {
+        if (!mInGesture) return;
+        if (direction != BaseSwipeLayout.NONE) mMetrics.mDirection = direction;
+        long now = System.nanoTime();
+        switch (state) {
+            case SwipeToRefreshLayout.LOADING:
+                mLoadingNanos = now;
+                if (mReleaseNanos > 0) mMetrics.mReleaseToLoadingMs = (now - mReleaseNanos) / NANOS_PER_MS;
+                break;
+            case SwipeToRefreshLayout.COMPLETED:
+                if (mLoadingNanos > 0) mMetrics.mLoadingToCompletedMs = (now - mLoadingNanos) / NANOS_PER_MS;
+                break;
+            case SwipeToRefreshLayout.IDLE:
+                mSummary.add(mMetrics);
+                mListener.onGestureMetrics(mMetrics);
+                endGesture();
+                break;
+        }
+    }
+
+    void onReleased() {
+        mReleaseNanos = System.nanoTime();
+    }
+
+    void onContentMoved() {
+        if (mPendingMoveNanos == 0) mPendingMoveNanos = System.nanoTime();
+    }
+
+    void onDraw() {
+        if (mPendingMoveNanos > 0) {
+            mMetrics.mDragToDraw.record((System.nanoTime() - mPendingMoveNanos) / NANOS_PER_MS);
+            mPendingMoveNanos = 0;
+        }
+    }
+
+    /**
+     * 离开窗口时丢弃未完成的手势
+     */
+    void stop() {
+        stopFrames();
+        mDragState = ViewDragHelper.STATE_IDLE;
+        endGesture();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (mDragState == ViewDragHelper.STATE_IDLE) return;
+        if (mLastFrameNanos > 0) {
+            boolean jank = frameTimeNanos - mLastFrameNanos > mMetrics.getJankThresholdNanos();
+            if (mDragState == ViewDragHelper.STATE_DRAGGING) {
+                mMetrics.mDraggingFrames++;
+                if (jank) mMetrics.mDraggingJankFrames++;
+            } else {
+                mMetrics.mSettlingFrames++;
+                if (jank) mMetrics.mSettlingJankFrames++;
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * host所在屏幕的每帧预算，API 17以下或还未attach时使用默认屏幕
+     */
+    private long readFrameBudget() {
+        Display display = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? mHost.getDisplay() : null;
+        if (null == display) {
+            WindowManager windowManager = (WindowManager) mHost.getContext().getSystemService(Context.WINDOW_SERVICE);
+            if (null != windowManager) display = windowManager.getDefaultDisplay();
+        }
+        return GestureMetrics.frameBudgetNanos(null == display ? 0 : display.getRefreshRate());
+    }
+
+    private void stopFrames() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        mLastFrameNanos = 0;
+    }
+
+    private void endGesture() {
+        mInGesture = false;
+        mPendingMoveNanos = 0;
+        mReleaseNanos = 0;
+        mLoadingNanos = 0;
+        mMetrics.reset();
+    }
+}
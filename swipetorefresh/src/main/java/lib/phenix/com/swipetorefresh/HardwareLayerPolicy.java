@@ -0,0 +1,72 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.support.v4.view.ViewCompat;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+
+/**
+ * 拖拽和自动滑动期间把内容(以及可选的边缘View)提升为硬件层，只移动层而不重放内容的绘制，停止后恢复
+ * 以下情况不提升：窗口未开启硬件加速、View已经设置了自己的layerType、
+ * 浅层子View中有WebView/SurfaceView/TextureView等持续刷新的View(层会在每帧失效，反而多一次绘制)
+ */
+
+final class HardwareLayerPolicy {
+
+    /**
+     * 只检查浅层子View，避免对大型列表每次拖拽都遍历整棵树
+     */
+    private static final int SCAN_DEPTH = 3;
+
+    private final View[] mPromoted = new View[2];
+    private int mPromotedCount;
+
+    boolean mEnabled = true;
+    boolean mIncludeEdgeView;
+
+    /**
+     * 提升view，已提升或不满足条件时忽略
+     */
+    void promote(View view) {
+        if (!mEnabled || null == view || mPromotedCount == mPromoted.length) return;
+        for (int i = 0; i < mPromotedCount; i++) {
+            if (mPromoted[i] == view) return;
+        }
+        if (!shouldPromote(view)) return;
+        ViewCompat.setLayerType(view, ViewCompat.LAYER_TYPE_HARDWARE, null);
+        mPromoted[mPromotedCount++] = view;
+    }
+
+    /**
+     * 恢复所有被提升的View
+     */
+    void demoteAll() {
+        for (int i = 0; i < mPromotedCount; i++) {
+            ViewCompat.setLayerType(mPromoted[i], ViewCompat.LAYER_TYPE_NONE, null);
+            mPromoted[i] = null;
+        }
+        mPromotedCount = 0;
+    }
+
+    static boolean shouldPromote(View view) {
+        return view.getVisibility() == View.VISIBLE
+                && view.isHardwareAccelerated()
+                && ViewCompat.getLayerType(view) == ViewCompat.LAYER_TYPE_NONE
+                && !containsLiveContent(view, SCAN_DEPTH);
+    }
+
+    private static boolean containsLiveContent(View view, int depth) {
+        if (view instanceof WebView || view instanceof SurfaceView || view instanceof TextureView) {
+            return true;
+        }
+        if (depth > 0 && view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0, count = group.getChildCount(); i < count; i++) {
+                if (containsLiveContent(group.getChildAt(i), depth - 1)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -24,6 +24,13 @@ public class IndicatorsRefreshHeader extends RelativeLayout implements OnRefresh
 
     TextView mText;
 
+    /**
+     * 是否处于未到达刷新点状态，只在越过刷新点时更新文字，避免拖拽时每个像素都触发TextView重新布局
+     */
+    private boolean isPull = true;
+
+    private float mLastFraction = -1;
+
     public IndicatorsRefreshHeader(Context context) {
         super(context);
         init(context);
@@ -64,21 +71,33 @@ public class IndicatorsRefreshHeader extends RelativeLayout implements OnRefresh
         addView(mText, textLayoutParams);
     }
 
+    /**
+     * 文字相同时不调用setText，避免无意义的requestLayout
+     */
+    private void updateText(String text) {
+        if (!text.contentEquals(mText.getText())) {
+            mText.setText(text);
+        }
+    }
+
     @Override
     public void onIdle() {
-        mText.setText("滑动刷新...");
+        updateText("滑动刷新...");
+        isPull = true;
     }
 
     @Override
     public void onDragging() {
         mIndicatorView.setAnimationStatus(BaseIndicatorController.AnimStatus.END);
-        mText.setText("滑动刷新...");
+        //拖拽开始时还未到达刷新点
+        updateText("拖拽刷新");
+        isPull = true;
     }
 
     @Override
     public void onLoading() {
         mIndicatorView.setAnimationStatus(BaseIndicatorController.AnimStatus.START);
-        mText.setText("正在刷新...");
+        updateText("正在刷新...");
     }
 
     @Override
@@ -89,21 +108,37 @@ public class IndicatorsRefreshHeader extends RelativeLayout implements OnRefresh
     @Override
     public void onCompleted() {
         mIndicatorView.setAnimationStatus(BaseIndicatorController.AnimStatus.END);
-        mText.setText("刷新完成");
+        updateText("刷新完成");
+    }
+
+    @Override
+    public void onReset() {
+        mIndicatorView.setAnimationStatus(BaseIndicatorController.AnimStatus.END);
+        ViewCompat.setRotation(mIndicatorView, 0);
+        ViewCompat.setScaleX(mIndicatorView, 1);
+        ViewCompat.setScaleY(mIndicatorView, 1);
+        ViewCompat.setAlpha(mIndicatorView, 1);
+        mLastFraction = -1;
+        onIdle();
     }
 
     @Override
     public void onPositionChange(@SwipeToRefreshLayout.SwipeDirection int direction, @SwipeToRefreshLayout.State int state, int refreshPoint, int range, int currentX, int currentY, int lastX, int lastY, float touchX, float touchY) {
-        float fraction = currentX >= refreshPoint? 1: currentX * 1.0f/refreshPoint;
-        ViewCompat.setScaleX(mIndicatorView, fraction);
-        ViewCompat.setScaleY(mIndicatorView, fraction);
         ViewCompat.setRotation(mIndicatorView, currentX * 1.0f/refreshPoint * 360);
-        ViewCompat.setAlpha(mIndicatorView, fraction);
+        float fraction = currentX >= refreshPoint? 1: currentX * 1.0f/refreshPoint;
+        if (fraction != mLastFraction) {
+            ViewCompat.setScaleX(mIndicatorView, fraction);
+            ViewCompat.setScaleY(mIndicatorView, fraction);
+            ViewCompat.setAlpha(mIndicatorView, fraction);
+            mLastFraction = fraction;
+        }
 
-        if (currentX < refreshPoint){
-            mText.setText("拖拽刷新");
-        }else{
-            mText.setText("释放刷新");
+        if (!isPull && currentX < refreshPoint) {
+            updateText("拖拽刷新");
+            isPull = true;
+        } else if (isPull && currentX >= refreshPoint) {
+            updateText("释放刷新");
+            isPull = false;
         }
     }
 }
@@ -0,0 +1,112 @@
+package lib.phenix.com.swipetorefresh;
+
+import java.util.Arrays;
+
+/**
+ * 预分配的耗时直方图，记录时不分配对象
+ * 桶由升序的上界(毫秒)决定，超过最大上界的值计入最后的溢出桶，百分位只精确到桶
+ */
+
+public final class LatencyHistogram {
+
+    private final long[] mBounds;
+    private final int[] mCounts;
+    private int mCount;
+    private long mSum;
+    private long mMax;
+
+    /**
+     * @param bounds 升序的桶上界，单位毫秒
+     */
+    public LatencyHistogram(long... bounds) {
+        if (null == bounds || bounds.length == 0) {
+            throw new IllegalArgumentException("bounds不能为空");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds必须升序: " + Arrays.toString(bounds));
+            }
+        }
+        mBounds = Arrays.copyOf(bounds, bounds.length);
+        mCounts = new int[bounds.length + 1];
+    }
+
+    public void record(long millis) {
+        int i = 0;
+        while (i < mBounds.length && millis > mBounds[i]) i++;
+        mCounts[i]++;
+        mCount++;
+        mSum += millis;
+        if (millis > mMax) mMax = millis;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    public long getMean() {
+        return mCount == 0 ? 0 : mSum / mCount;
+    }
+
+    /**
+     * @param percentile (0, 100]，如50、95、99
+     * @return 该百分位所在桶的上界，落在溢出桶时返回最大值，没有数据时返回0
+     */
+    public long getPercentile(float percentile) {
+        if (mCount == 0) return 0;
+        int rank = (int) Math.ceil(mCount * percentile / 100f);
+        if (rank < 1) rank = 1;
+        int seen = 0;
+        for (int i = 0; i < mBounds.length; i++) {
+            seen += mCounts[i];
+            if (seen >= rank) return Math.min(mBounds[i], mMax);
+        }
+        return mMax;
+    }
+
+    /**
+     * 桶的数量，包括最后的溢出桶
+     */
+    public int getBucketCount() {
+        return mCounts.length;
+    }
+
+    /**
+     * @return 第index个桶的上界，溢出桶返回Long.MAX_VALUE
+     */
+    public long getBucketBound(int index) {
+        return index < mBounds.length ? mBounds[index] : Long.MAX_VALUE;
+    }
+
+    public int getBucketValue(int index) {
+        return mCounts[index];
+    }
+
+    /**
+     * 把other的数据累加进来，用于多次统计的汇总
+     *
+     * @param other 桶上界必须与当前直方图相同
+     */
+    public void add(LatencyHistogram other) {
+        if (!Arrays.equals(mBounds, other.mBounds)) {
+            throw new IllegalArgumentException("桶上界不同，无法累加");
+        }
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i] += other.mCounts[i];
+        }
+        mCount += other.mCount;
+        mSum += other.mSum;
+        if (other.mMax > mMax) mMax = other.mMax;
+    }
+
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mSum = 0;
+        mMax = 0;
+    }
+}
@@ -28,6 +28,8 @@ public class MaterialRefreshHeader extends RelativeLayout implements OnRefreshLi
     private int progressBgColor;
     private int progressSize;
 
+    private float mLastFraction = -1;
+
 
     public MaterialRefreshHeader(Context context) {
         this(context, null);
@@ -57,6 +59,7 @@ public class MaterialRefreshHeader extends RelativeLayout implements OnRefreshLi
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        if (mProgressView != null) return; //从复用池中重新attach时不再重复创建
         if (progressSize == 0) progressSize = (int) (getWidth() * 0.8f);
         mProgressView = new CircleProgressBar(getContext());
         RelativeLayout.LayoutParams params = new LayoutParams(progressSize, progressSize);
@@ -174,6 +177,21 @@ public class MaterialRefreshHeader extends RelativeLayout implements OnRefreshLi
         }
     }
 
+    @Override
+    public void onReset() {
+        if (mProgressDrawable != null) {
+            mProgressDrawable.stop();
+            mProgressDrawable.setProgressRotation(0);
+        }
+        if (mProgressView != null) {
+            ViewCompat.setScaleX(mProgressView, 1);
+            ViewCompat.setScaleY(mProgressView, 1);
+            ViewCompat.setAlpha(mProgressView, 1);
+        }
+        mLastFraction = -1;
+        onIdle();
+    }
+
     @Override
     public void onPositionChange(@SwipeToRefreshLayout.SwipeDirection int direction,
                                  @SwipeToRefreshLayout.State int state,
@@ -184,9 +202,13 @@ public class MaterialRefreshHeader extends RelativeLayout implements OnRefreshLi
         if (mProgressView != null) {
             mProgressDrawable.setProgressRotation(currentY *1.0f / range);
             float fraction = currentY >= refreshPoint? 1: currentY * 1.0f/refreshPoint;
-            ViewCompat.setScaleX(mProgressView, fraction);
-            ViewCompat.setScaleY(mProgressView, fraction);
-            ViewCompat.setAlpha(mProgressView, fraction);
+            //越过刷新点后fraction不再变化，跳过重复的属性设置
+            if (fraction != mLastFraction) {
+                ViewCompat.setScaleX(mProgressView, fraction);
+                ViewCompat.setScaleY(mProgressView, fraction);
+                ViewCompat.setAlpha(mProgressView, fraction);
+                mLastFraction = fraction;
+            }
         }
 
 
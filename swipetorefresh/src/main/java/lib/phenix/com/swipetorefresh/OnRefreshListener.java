@@ -11,6 +11,12 @@ public interface OnRefreshListener {
     void onSettling();
     void onCompleted();
 
+    /**
+     * 被放回{@link EdgeViewPool}时调用，还原拖拽和刷新过程中修改的状态(子View的缩放、透明度、动画、缓存的进度等)，
+     * 使复用时与新创建的View一致；只依赖onIdle就能还原的实现可以直接调用onIdle()
+     */
+    void onReset();
+
     /**
      * 监听位置改变
      * @param direction 当前swipe方向
@@ -0,0 +1,245 @@
+package lib.phenix.com.swipetorefresh;
+
+/**
+ * 下拉刷新的手势/状态机，不依赖View，可以直接在JVM上驱动
+ * 输入：开始拖拽、手指移动(含内容能否继续滚动)、释放、自动滑动、停止、刷新完成、重置、展开、直接开始/恢复刷新
+ * 输出：状态变化、刷新回调、锁定方向变化，手指移动是否由边缘View处理，以及释放后应停靠的偏移量
+ * 只有释放时越过刷新点(或fling越过一半)、展开、直接开始/恢复刷新才会进入LOADING
+ * 方向取值与{@link BaseSwipeLayout}的SwipeDirection一致，偏移量都是相对内容原点、朝展开方向为正的距离
+ */
+
+public class RefreshStateMachine {
+
+    public static final int IDLE = 0;
+    public static final int DRAGGING = 1;
+    public static final int LOADING = 2;
+    public static final int SETTLING = 3;
+    public static final int COMPLETED = 4;
+
+    static final int NONE = 0;
+
+    private final Effects mEffects;
+
+    private int mState = IDLE;
+
+    private int mLockDirection = NONE;
+
+    private boolean mRestoring;
+
+    /**
+     * 本次手势最近一次被边缘View处理的移动
+     */
+    private int mDragDirection = NONE;
+    private int mDragOffset;
+    private int mDragExtent;
+
+    public RefreshStateMachine(Effects effects) {
+        if (null == effects) throw new IllegalArgumentException("effects == null");
+        this.mEffects = effects;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    public int getLockDirection() {
+        return mLockDirection;
+    }
+
+    /**
+     * 是否处于刷新中或刷新完成等待收起，此时拖拽/滑动不会改变状态
+     */
+    public boolean isRefreshing() {
+        return mState == LOADING || mState == COMPLETED;
+    }
+
+    /**
+     * 是否越过了刷新点，即此时释放会触发刷新
+     */
+    public boolean isThresholdReached() {
+        return mDragDirection != NONE && mDragExtent > 0 && mDragOffset >= mDragExtent;
+    }
+
+    /**
+     * 用户开始拖拽
+     */
+    public void onDragStarted() {
+        clearDrag();
+        if (!isRefreshing()) setState(DRAGGING);
+    }
+
+    /**
+     * 手指移动
+     * 内容还能朝该方向滚动且边缘View尚未拉出时交给内容滚动；刷新中只处理锁定方向所在轴上的移动
+     * 交给内容的移动会清除之前记录的移动，此时释放回到原点
+     *
+     * @param direction        当前拖拽方向
+     * @param offset           该方向当前展开距离
+     * @param extent           该方向边缘View完全展开的距离，<=0表示没有边缘View
+     * @param contentCanScroll 内容是否还能朝该方向滚动
+     * @return true 由边缘View处理本次移动，false 交给内容
+     */
+    public boolean onPointerMove(int direction, int offset, int extent, boolean contentCanScroll) {
+        if (direction == NONE || contentCanScroll && offset <= 0
+                || isRefreshing() && (mLockDirection == NONE || !isSameAxis(direction, mLockDirection))) {
+            clearDrag();
+            return false;
+        }
+        if (!isRefreshing()) setState(DRAGGING);
+        mDragDirection = direction;
+        mDragOffset = offset;
+        mDragExtent = extent;
+        return true;
+    }
+
+    /**
+     * 用户释放，使用最近一次{@link #onPointerMove}记录的方向和距离
+     *
+     * @see #onRelease(int, int, int, float, float)
+     */
+    public int onRelease(float velocity, float minFlingVelocity) {
+        int direction = mDragDirection;
+        int offset = mDragOffset;
+        int extent = mDragExtent;
+        clearDrag();
+        return onRelease(direction, offset, extent, velocity, minFlingVelocity);
+    }
+
+    /**
+     * 内容开始自动滑动
+     */
+    public void onSettling() {
+        if (!isRefreshing()) setState(SETTLING);
+    }
+
+    /**
+     * 用户释放，拖过完全展开处，或拖过一半并朝展开方向fling时触发刷新，否则解除锁定
+     * 刷新中只接受锁定方向的释放，不会切换锁定方向，刷新完成后总是回到原点
+     *
+     * @param direction        当前拖拽方向
+     * @param offset           当前展开距离
+     * @param extent           该方向边缘View完全展开的距离，<=0表示没有边缘View
+     * @param velocity         释放速度，正值表示朝展开方向
+     * @param minFlingVelocity 视为fling的最小速度
+     * @return 应停靠的偏移量，0表示回到原点
+     */
+    public int onRelease(int direction, int offset, int extent, float velocity, float minFlingVelocity) {
+        boolean reached = direction != NONE && extent > 0
+                && (offset >= extent || offset >= extent / 2 && velocity >= minFlingVelocity);
+        if (isRefreshing()) {
+            return mState == LOADING && reached && direction == mLockDirection ? extent : 0;
+        }
+        setLockDirection(reached ? direction : NONE);
+        return reached ? extent : 0;
+    }
+
+    /**
+     * 内容停止移动
+     *
+     * @param atOrigin 内容是否在原点
+     * @return true 需要把内容滑回原点(刷新完成后或未越过刷新点的滑动被打断)，滑动结束后会再次回调本方法
+     */
+    public boolean onIdle(boolean atOrigin) {
+        clearDrag();
+        if (mState != LOADING) {
+            //没有锁定方向说明没有越过刷新点，停在中途不能进入LOADING
+            if (!atOrigin && (mState == COMPLETED || mLockDirection == NONE)) {
+                return true;
+            }
+            setState(atOrigin ? IDLE : LOADING);
+        }
+        if (mState != LOADING && atOrigin) {
+            setLockDirection(NONE);
+        }
+        return false;
+    }
+
+    /**
+     * 刷新完成，只在LOADING时生效
+     *
+     * @return true 需要把内容滑回原点
+     */
+    public boolean onRefreshCompleted() {
+        if (mState != LOADING) return false;
+        setState(COMPLETED);
+        return true;
+    }
+
+    /**
+     * 外部主动重置，内容会被滑回原点，锁定方向在回到原点的onIdle中解除
+     */
+    public void reset() {
+        setState(IDLE);
+    }
+
+    /**
+     * 不经过拖拽和滑动，直接以direction方向进入LOADING，如首次布局时自动刷新
+     */
+    public void startRefresh(int direction) {
+        if (isRefreshing()) return;
+        setLockDirection(direction);
+        setState(LOADING);
+    }
+
+    /**
+     * 恢复重建前正在进行的刷新，进入LOADING但不回调onRefresh，避免重复请求
+     */
+    public void restoreRefresh(int direction) {
+        if (isRefreshing()) return;
+        setLockDirection(direction);
+        mRestoring = true;
+        setState(LOADING);
+        mRestoring = false;
+    }
+
+    /**
+     * 代码触发展开到direction方向，刷新中忽略
+     */
+    public void onExpand(int direction) {
+        if (isRefreshing()) return;
+        setLockDirection(direction);
+    }
+
+    private void clearDrag() {
+        mDragDirection = NONE;
+        mDragOffset = 0;
+        mDragExtent = 0;
+    }
+
+    private static boolean isSameAxis(int a, int b) {
+        return DragMath.isHorizontal(a) == DragMath.isHorizontal(b);
+    }
+
+    private void setState(int state) {
+        if (mState == state) return;
+        mState = state;
+        mEffects.onStateChanged(state);
+        if (state == LOADING && !mRestoring) mEffects.onRefresh(mLockDirection);
+    }
+
+    private void setLockDirection(int direction) {
+        if (mLockDirection == direction) return;
+        mLockDirection = direction;
+        mEffects.onLockDirectionChanged(direction);
+    }
+
+    /**
+     * 状态机输出的副作用
+     */
+    public interface Effects {
+
+        void onStateChanged(int state);
+
+        /**
+         * 进入LOADING
+         *
+         * @param direction 触发刷新的方向
+         */
+        void onRefresh(int direction);
+
+        /**
+         * 锁定方向变化，NONE表示解除锁定
+         */
+        void onLockDirectionChanged(int direction);
+    }
+}
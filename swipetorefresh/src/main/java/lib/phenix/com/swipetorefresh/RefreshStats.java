@@ -0,0 +1,192 @@
+package lib.phenix.com.swipetorefresh;
+
+/**
+ * 按方向累计的刷新耗时统计，不依赖View，时间由调用方传入
+ * 一次刷新从进入LOADING开始，调用refreshCompleted视为完成，未完成就离开LOADING(如reset)视为取消，
+ * LOADING超过设定的超时时间计一次超时(刷新仍会继续，完成后照常记录耗时)
+ */
+
+public class RefreshStats {
+
+    private final DirectionStats[] mStats = new DirectionStats[4];
+
+    int mLoadingDirection = BaseSwipeLayout.NONE;
+    private long mLoadingStart;
+    private boolean mLoadingTimedOut;
+
+    public RefreshStats() {
+        for (int i = 0; i < mStats.length; i++) {
+            mStats[i] = new DirectionStats();
+        }
+    }
+
+    /**
+     * @param direction LEFT、TOP、RIGHT、BOTTOM之一
+     */
+    public DirectionStats get(int direction) {
+        int index = indexOf(direction);
+        if (index < 0) throw new IllegalArgumentException("不支持的方向: " + direction);
+        return mStats[index];
+    }
+
+    /**
+     * 清空所有方向的统计，正在进行的刷新不受影响
+     */
+    public void reset() {
+        for (DirectionStats stats : mStats) {
+            stats.reset();
+        }
+    }
+
+    void onRefreshStarted(int direction, long now) {
+        int index = indexOf(direction);
+        if (index < 0) return;
+        mLoadingDirection = direction;
+        mLoadingStart = now;
+        mLoadingTimedOut = false;
+        mStats[index].mStarted++;
+    }
+
+    /**
+     * 刷新状态变化，离开LOADING时结束当前刷新，进入COMPLETED视为正常完成
+     */
+    void onStateChanged(int state, long now) {
+        if (state != RefreshStateMachine.LOADING) {
+            onRefreshFinished(state == RefreshStateMachine.COMPLETED, now);
+        }
+    }
+
+    /**
+     * 离开LOADING
+     *
+     * @param completed true 正常完成，false 被取消
+     */
+    void onRefreshFinished(boolean completed, long now) {
+        if (mLoadingDirection == BaseSwipeLayout.NONE) return;
+        DirectionStats stats = get(mLoadingDirection);
+        if (completed) {
+            stats.mCompleted++;
+            stats.mDuration.record(now - mLoadingStart);
+        } else {
+            stats.mCancelled++;
+        }
+        mLoadingDirection = BaseSwipeLayout.NONE;
+    }
+
+    /**
+     * 当前刷新超时，同一次刷新只计一次
+     */
+    void onRefreshTimeout() {
+        if (mLoadingDirection == BaseSwipeLayout.NONE || mLoadingTimedOut) return;
+        mLoadingTimedOut = true;
+        get(mLoadingDirection).mTimedOut++;
+    }
+
+    private static int indexOf(int direction) {
+        switch (direction) {
+            case BaseSwipeLayout.LEFT:
+                return 0;
+            case BaseSwipeLayout.TOP:
+                return 1;
+            case BaseSwipeLayout.RIGHT:
+                return 2;
+            case BaseSwipeLayout.BOTTOM:
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshStats{" +
+                "left=" + mStats[0] +
+                ", top=" + mStats[1] +
+                ", right=" + mStats[2] +
+                ", bottom=" + mStats[3] +
+                '}';
+    }
+
+    /**
+     * 单个方向的统计
+     */
+    public static class DirectionStats {
+
+        final LatencyHistogram mDuration = new LatencyHistogram(
+                100, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 8000, 10000, 15000, 30000);
+        int mStarted;
+        int mCompleted;
+        int mCancelled;
+        int mTimedOut;
+
+        /**
+         * 完成的刷新从LOADING到COMPLETED的耗时，单位毫秒
+         */
+        public LatencyHistogram getDuration() {
+            return mDuration;
+        }
+
+        public long getP50() {
+            return mDuration.getPercentile(50);
+        }
+
+        public long getP95() {
+            return mDuration.getPercentile(95);
+        }
+
+        public long getP99() {
+            return mDuration.getPercentile(99);
+        }
+
+        public int getStarted() {
+            return mStarted;
+        }
+
+        public int getCompleted() {
+            return mCompleted;
+        }
+
+        public int getCancelled() {
+            return mCancelled;
+        }
+
+        public int getTimedOut() {
+            return mTimedOut;
+        }
+
+        /**
+         * 取消次数/开始次数
+         */
+        public float getCancellationRate() {
+            return mStarted == 0 ? 0 : (float) mCancelled / mStarted;
+        }
+
+        /**
+         * 超时次数/开始次数
+         */
+        public float getTimeoutRate() {
+            return mStarted == 0 ? 0 : (float) mTimedOut / mStarted;
+        }
+
+        void reset() {
+            mDuration.reset();
+            mStarted = 0;
+            mCompleted = 0;
+            mCancelled = 0;
+            mTimedOut = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                    "started=" + mStarted +
+                    ", completed=" + mCompleted +
+                    ", cancelled=" + mCancelled +
+                    ", timedOut=" + mTimedOut +
+                    ", p50=" + getP50() +
+                    ", p95=" + getP95() +
+                    ", p99=" + getP99() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.view.View;
+
+/**
+ * 判断mContentView是否还能继续滚动，决定拖拽交给内容滚动还是拉出边缘View
+ * 方向参数与ViewCompat.canScrollVertically/canScrollHorizontally一致：正值表示向下/向右还有内容，负值表示向上/向左
+ * 内置实现见{@link ScrollEdgeDetectors}，也可以通过{@link ScrollEdgeDetectors#register(ScrollEdgeDetector)}
+ * 或{@link BaseSwipeLayout#setScrollEdgeDetector(ScrollEdgeDetector)}提供自定义View的实现
+ */
+
+public interface ScrollEdgeDetector {
+
+    /**
+     * 是否能处理该View，内容View变化时调用一次，结果会被缓存
+     */
+    boolean accepts(View view);
+
+    boolean canScrollVertically(View view, int direction);
+
+    boolean canScrollHorizontally(View view, int direction);
+}
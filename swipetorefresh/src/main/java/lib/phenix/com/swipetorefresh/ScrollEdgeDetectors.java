@@ -0,0 +1,254 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPager;
+import android.support.v4.widget.NestedScrollView;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+import android.widget.AbsListView;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+
+import lib.phenix.com.swipetorefresh.view.EdgeTrackingWebView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ScrollEdgeDetector}的注册表和内置实现，只在主线程访问
+ * 内置：RecyclerView(LinearLayoutManager及其子类，按可见item位置判断)、AbsListView、ScrollView、
+ * NestedScrollView、HorizontalScrollView、WebView、ViewPager，其余View使用ViewCompat.canScrollXxx
+ * RecyclerView是provided依赖，运行时不存在时不会注册对应实现
+ */
+
+public final class ScrollEdgeDetectors {
+
+    /**
+     * 没有匹配的实现时使用
+     */
+    public static final ScrollEdgeDetector DEFAULT = new ScrollEdgeDetector() {
+        @Override
+        public boolean accepts(View view) {
+            return true;
+        }
+
+        @Override
+        public boolean canScrollVertically(View view, int direction) {
+            return ViewCompat.canScrollVertically(view, direction);
+        }
+
+        @Override
+        public boolean canScrollHorizontally(View view, int direction) {
+            return ViewCompat.canScrollHorizontally(view, direction);
+        }
+    };
+
+    private static final List<ScrollEdgeDetector> sDetectors = new ArrayList<>();
+
+    static {
+        if (hasClass("android.support.v7.widget.RecyclerView")) {
+            sDetectors.add(new RecyclerViewDetector());
+        }
+        sDetectors.add(new AbsListViewDetector());
+        sDetectors.add(new ScrollViewDetector());
+        sDetectors.add(new WebViewDetector());
+        sDetectors.add(new ViewPagerDetector());
+    }
+
+    private ScrollEdgeDetectors() {
+    }
+
+    /**
+     * 注册自定义实现，后注册的优先
+     */
+    public static void register(ScrollEdgeDetector detector) {
+        if (null == detector) throw new IllegalArgumentException("detector == null");
+        sDetectors.add(0, detector);
+    }
+
+    public static void unregister(ScrollEdgeDetector detector) {
+        sDetectors.remove(detector);
+    }
+
+    /**
+     * 查找能处理view的实现，没有时返回{@link #DEFAULT}
+     */
+    public static ScrollEdgeDetector find(View view) {
+        for (int i = 0, size = sDetectors.size(); i < size; i++) {
+            ScrollEdgeDetector detector = sDetectors.get(i);
+            if (detector.accepts(view)) return detector;
+        }
+        return DEFAULT;
+    }
+
+    private static boolean hasClass(String name) {
+        try {
+            Class.forName(name);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 只处理正向布局的LinearLayoutManager，不计算整个列表的滚动偏移和范围
+     */
+    static class RecyclerViewDetector implements ScrollEdgeDetector {
+
+        @Override
+        public boolean accepts(View view) {
+            return view instanceof RecyclerView;
+        }
+
+        @Override
+        public boolean canScrollVertically(View view, int direction) {
+            RecyclerView.LayoutManager lm = ((RecyclerView) view).getLayoutManager();
+            if (!(lm instanceof LinearLayoutManager) || ((LinearLayoutManager) lm).getReverseLayout()) {
+                return ViewCompat.canScrollVertically(view, direction);
+            }
+            if (((LinearLayoutManager) lm).getOrientation() != LinearLayoutManager.VERTICAL) return false;
+            return canScroll((LinearLayoutManager) lm, direction, true);
+        }
+
+        @Override
+        public boolean canScrollHorizontally(View view, int direction) {
+            RecyclerView.LayoutManager lm = ((RecyclerView) view).getLayoutManager();
+            if (!(lm instanceof LinearLayoutManager) || ((LinearLayoutManager) lm).getReverseLayout()) {
+                return ViewCompat.canScrollHorizontally(view, direction);
+            }
+            if (((LinearLayoutManager) lm).getOrientation() != LinearLayoutManager.HORIZONTAL) return false;
+            return canScroll((LinearLayoutManager) lm, direction, false);
+        }
+
+        private static boolean canScroll(LinearLayoutManager lm, int direction, boolean vertical) {
+            int count = lm.getItemCount();
+            if (count == 0) return false;
+            if (direction < 0) {
+                int first = lm.findFirstVisibleItemPosition();
+                if (first == RecyclerView.NO_POSITION) return false;
+                if (first > 0) return true;
+                View child = lm.findViewByPosition(0);
+                return null != child && (vertical
+                        ? lm.getDecoratedTop(child) < lm.getPaddingTop()
+                        : lm.getDecoratedLeft(child) < lm.getPaddingLeft());
+            }
+            int last = lm.findLastVisibleItemPosition();
+            if (last == RecyclerView.NO_POSITION) return false;
+            if (last < count - 1) return true;
+            View child = lm.findViewByPosition(last);
+            return null != child && (vertical
+                    ? lm.getDecoratedBottom(child) > lm.getHeight() - lm.getPaddingBottom()
+                    : lm.getDecoratedRight(child) > lm.getWidth() - lm.getPaddingRight());
+        }
+    }
+
+    static class AbsListViewDetector implements ScrollEdgeDetector {
+
+        @Override
+        public boolean accepts(View view) {
+            return view instanceof AbsListView;
+        }
+
+        @Override
+        public boolean canScrollVertically(View view, int direction) {
+            AbsListView list = (AbsListView) view;
+            int childCount = list.getChildCount();
+            if (childCount == 0) return false;
+            if (direction < 0) {
+                return list.getFirstVisiblePosition() > 0
+                        || list.getChildAt(0).getTop() < list.getListPaddingTop();
+            }
+            return list.getLastVisiblePosition() < list.getCount() - 1
+                    || list.getChildAt(childCount - 1).getBottom() > list.getHeight() - list.getListPaddingBottom();
+        }
+
+        @Override
+        public boolean canScrollHorizontally(View view, int direction) {
+            return false;
+        }
+    }
+
+    /**
+     * ScrollView、NestedScrollView、HorizontalScrollView只有一个子View，直接比较滚动位置和子View尺寸
+     */
+    static class ScrollViewDetector implements ScrollEdgeDetector {
+
+        @Override
+        public boolean accepts(View view) {
+            return view instanceof ScrollView || view instanceof NestedScrollView || view instanceof HorizontalScrollView;
+        }
+
+        @Override
+        public boolean canScrollVertically(View view, int direction) {
+            if (view instanceof HorizontalScrollView) return false;
+            if (direction < 0) return view.getScrollY() > 0;
+            View child = ((ViewGroup) view).getChildAt(0);
+            return null != child
+                    && child.getHeight() - (view.getHeight() - view.getPaddingTop() - view.getPaddingBottom()) > view.getScrollY();
+        }
+
+        @Override
+        public boolean canScrollHorizontally(View view, int direction) {
+            if (!(view instanceof HorizontalScrollView)) return false;
+            if (direction < 0) return view.getScrollX() > 0;
+            View child = ((ViewGroup) view).getChildAt(0);
+            return null != child
+                    && child.getWidth() - (view.getWidth() - view.getPaddingLeft() - view.getPaddingRight()) > view.getScrollX();
+        }
+    }
+
+    /**
+     * {@link EdgeTrackingWebView}直接读取缓存的边界；普通WebView按页面整体的滚动位置判断，页面内部可滚动的元素不在考虑范围内
+     */
+    static class WebViewDetector implements ScrollEdgeDetector {
+
+        @Override
+        public boolean accepts(View view) {
+            return view instanceof WebView;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean canScrollVertically(View view, int direction) {
+            if (view instanceof EdgeTrackingWebView) {
+                return ((EdgeTrackingWebView) view).canScrollVerticallyCached(direction);
+            }
+            WebView webView = (WebView) view;
+            if (direction < 0) return webView.getScrollY() > 0;
+            return (int) (webView.getContentHeight() * webView.getScale()) - webView.getHeight() > webView.getScrollY();
+        }
+
+        @Override
+        public boolean canScrollHorizontally(View view, int direction) {
+            if (view instanceof EdgeTrackingWebView) {
+                return ((EdgeTrackingWebView) view).canScrollHorizontallyCached(direction);
+            }
+            return ViewCompat.canScrollHorizontally(view, direction);
+        }
+    }
+
+    static class ViewPagerDetector implements ScrollEdgeDetector {
+
+        @Override
+        public boolean accepts(View view) {
+            return view instanceof ViewPager;
+        }
+
+        @Override
+        public boolean canScrollVertically(View view, int direction) {
+            return false;
+        }
+
+        @Override
+        public boolean canScrollHorizontally(View view, int direction) {
+            ViewPager pager = (ViewPager) view;
+            PagerAdapter adapter = pager.getAdapter();
+            if (null == adapter) return false;
+            return direction < 0 ? pager.getCurrentItem() > 0 : pager.getCurrentItem() < adapter.getCount() - 1;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package lib.phenix.com.swipetorefresh;
+
+import java.util.Arrays;
+
+/**
+ * 抽屉释放时的吸附点计算，不依赖View，只做纯数值运算
+ * 吸附点以边缘View尺寸的比例表示，如{1/3f, 2/3f, 1f}，0(关闭)总是隐含的吸附点
+ */
+
+public final class SnapPoints {
+
+    /**
+     * 默认只有完全展开一个吸附点
+     */
+    static final float[] FULL_REVEAL = {1f};
+
+    private SnapPoints() {
+    }
+
+    /**
+     * 校验、排序并去重吸附点，比例必须在(0, 1]之间
+     *
+     * @param fractions 吸附点比例
+     * @return 升序且不重复的副本，为空时返回{@link #FULL_REVEAL}
+     */
+    public static float[] normalize(float... fractions) {
+        if (fractions == null || fractions.length == 0) {
+            return FULL_REVEAL;
+        }
+        float[] result = Arrays.copyOf(fractions, fractions.length);
+        for (float fraction : result) {
+            if (fraction <= 0 || fraction > 1) {
+                throw new IllegalArgumentException("吸附点比例必须在(0, 1]之间: " + fraction);
+            }
+        }
+        Arrays.sort(result);
+        int size = 1;
+        for (int i = 1; i < result.length; i++) {
+            if (result[i] != result[size - 1]) {
+                result[size++] = result[i];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 计算释放后应停靠的偏移量
+     *
+     * @param offset           当前展开的距离，>=0
+     * @param extent           完全展开时的距离，即边缘View的尺寸
+     * @param fractions        升序的吸附点比例，为空时只有关闭一个吸附点
+     * @param velocity         释放速度，正值表示朝展开方向
+     * @param minFlingVelocity 超过该速度视为fling，沿速度方向吸附到下一个点，否则吸附到最近的点
+     * @return 停靠的偏移量，0表示关闭
+     */
+    public static int findSnapOffset(int offset, int extent, float[] fractions, float velocity, float minFlingVelocity) {
+        if (extent <= 0 || fractions == null || fractions.length == 0) {
+            return 0;
+        }
+        if (Math.abs(velocity) >= minFlingVelocity) {
+            if (velocity > 0) {
+                for (float fraction : fractions) {
+                    int anchor = (int) (extent * fraction);
+                    if (anchor > offset) {
+                        return anchor;
+                    }
+                }
+                return (int) (extent * fractions[fractions.length - 1]);
+            }
+            for (int i = fractions.length - 1; i >= 0; i--) {
+                int anchor = (int) (extent * fractions[i]);
+                if (anchor < offset) {
+                    return anchor;
+                }
+            }
+            return 0;
+        }
+        int nearest = 0;
+        int minDistance = Math.abs(offset);
+        for (float fraction : fractions) {
+            int anchor = (int) (extent * fraction);
+            int distance = Math.abs(offset - anchor);
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = anchor;
+            }
+        }
+        return nearest;
+    }
+}
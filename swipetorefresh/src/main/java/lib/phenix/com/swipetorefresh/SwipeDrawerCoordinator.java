@@ -0,0 +1,65 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * RecyclerView中SwipeDrawerLayout的协调器，每个列表一个
+ * 保证同时只有一个item展开：新item开始拖拽或展开时收起之前的item，列表滚动时收起展开的item
+ *
+ * 使用：
+ * <pre>
+ *     SwipeDrawerCoordinator coordinator = new SwipeDrawerCoordinator();
+ *     coordinator.attachToRecyclerView(recyclerView);
+ *     //onBindViewHolder中
+ *     swipeDrawerLayout.setCoordinator(coordinator);
+ * </pre>
+ */
+
+public class SwipeDrawerCoordinator extends RecyclerView.OnScrollListener {
+
+    private SwipeDrawerLayout mOpenedRow;
+
+    private RecyclerView mRecyclerView;
+
+    public void attachToRecyclerView(RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) return;
+        if (null != mRecyclerView) {
+            mRecyclerView.removeOnScrollListener(this);
+        }
+        mRecyclerView = recyclerView;
+        if (null != mRecyclerView) {
+            mRecyclerView.addOnScrollListener(this);
+        }
+    }
+
+    /**
+     * 收起当前展开的item
+     */
+    public void closeOpenedRow() {
+        if (null != mOpenedRow) {
+            SwipeDrawerLayout row = mOpenedRow;
+            mOpenedRow = null;
+            row.reset();
+        }
+    }
+
+    void onRowOpening(SwipeDrawerLayout row) {
+        if (mOpenedRow != row) {
+            closeOpenedRow();
+            mOpenedRow = row;
+        }
+    }
+
+    void onRowClosed(SwipeDrawerLayout row) {
+        if (mOpenedRow == row) {
+            mOpenedRow = null;
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+            closeOpenedRow();
+        }
+    }
+}
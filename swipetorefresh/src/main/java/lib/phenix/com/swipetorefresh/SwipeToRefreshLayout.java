@@ -2,16 +2,18 @@ package lib.phenix.com.swipetorefresh;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.widget.ViewDragHelper;
 import android.util.AttributeSet;
-import android.util.Log;
-import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.ViewGroup;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -21,29 +23,13 @@ import java.lang.annotation.RetentionPolicy;
  * @author zhouphenix on 2017-2-27.
  */
 
-public class SwipeToRefreshLayout extends ViewGroup {
+public class SwipeToRefreshLayout extends BaseSwipeLayout {
 
-    public static final int NONE = 0;
-    public static final int LEFT = 1;
-    public static final int TOP = 1 << 1;
-    public static final int RIGHT = 1 << 2;
-    public static final int BOTTOM = 1 << 3;
-
-
-    @IntDef({NONE,
-            LEFT,
-            TOP,
-            RIGHT,
-            BOTTOM})
-    @Retention(RetentionPolicy.SOURCE)
-    public @interface SwipeDirection {
-    }
-
-    public static final int IDLE = 0;
-    public static final int DRAGGING = 1;
-    public static final int LOADING = 2;
-    public static final int SETTLING = 3;
-    public static final int COMPLETED = 4;
+    public static final int IDLE = RefreshStateMachine.IDLE;
+    public static final int DRAGGING = RefreshStateMachine.DRAGGING;
+    public static final int LOADING = RefreshStateMachine.LOADING;
+    public static final int SETTLING = RefreshStateMachine.SETTLING;
+    public static final int COMPLETED = RefreshStateMachine.COMPLETED;
 
     @IntDef({IDLE,
             DRAGGING,
@@ -55,759 +41,563 @@ public class SwipeToRefreshLayout extends ViewGroup {
 
     }
 
-    @State
-    int mState;
-
-    private final ViewDragHelper mViewDragHelper;
-
-    int mDirectionMask = TOP;
+    /**
+     * 刷新状态都由状态机维护，这里只负责把View的事件转给它并执行它的输出
+     */
+    final RefreshStateMachine mStateMachine = new RefreshStateMachine(new RefreshStateMachine.Effects() {
+        @Override
+        public void onStateChanged(int state) {
+            flushPendingPosition();
+            if (state == LOADING) {
+                //预备的请求转为正式刷新
+                mPreparedDirection = NONE;
+            } else if (state == IDLE) {
+                cancelPrepareRefresh();
+            }
+            if (state != LOADING) removeCallbacks(mRefreshTimeoutCallback);
+            mRefreshStats.onStateChanged(state, SystemClock.uptimeMillis());
+            dispatchState(state);
+            if (null != mMetricsTracker)
+                mMetricsTracker.onRefreshStateChanged(state, mCurrentDirection != NONE ? mCurrentDirection : mLockDirection);
+        }
 
-    @SwipeDirection
-    int mCurrentDirection;
+        @Override
+        public void onRefresh(int direction) {
+            mRefreshStats.onRefreshStarted(direction, SystemClock.uptimeMillis());
+            if (mRefreshTimeout > 0) postDelayed(mRefreshTimeoutCallback, mRefreshTimeout);
+            if (null != mOnRefreshCallback)
+                mOnRefreshCallback.onRefresh(direction);
+        }
 
-    boolean enableSwipe;
+        @Override
+        public void onLockDirectionChanged(int direction) {
+            mLockDirection = direction;
+        }
+    });
 
+    private View mRefreshView;
 
-    int mOriginX;
-    int mOriginY;
+    GestureMetricsTracker mMetricsTracker;
+    final GestureMetricsSummary mGestureMetricsSummary = new GestureMetricsSummary();
 
     /**
-     * 阻尼因子
+     * 合并模式下，拖拽回调每帧最多一次
      */
-    float mHorizontalFactor = 0.3f;
-    float mVerticalFactor = 0.3f;
-
+    boolean mCoalesceDragCallbacks;
 
     /**
-     * Touch阻尼
+     * 预备刷新的阈值，占完全展开距离的比例
      */
-    float damping = 0.65f;
-    /**
-     * 水平drag的范围
-     */
-    int mVerticalDragRange;
-    /**
-     * 竖直drag的范围
-     */
-    int mHorizontalDragRange;
+    float mPrepareRefreshThreshold = 0.7f;
+    @SwipeDirection
+    int mPreparedDirection;
+    private boolean mPositionDispatchScheduled;
+    @SwipeDirection
+    private int mPendingDirection;
+    private int mPendingLeft, mPendingTop, mPendingDx, mPendingDy;
+
+    private final Runnable mPositionDispatchCallback = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingPosition();
+        }
+    };
 
+    final RefreshStats mRefreshStats = new RefreshStats();
+
+    long mRefreshTimeout;
+
+    private final Runnable mRefreshTimeoutCallback = new Runnable() {
+        @Override
+        public void run() {
+            mRefreshStats.onRefreshTimeout();
+        }
+    };
+
+    OnRefreshStatsListener mStatsListener;
+
+    long mStatsInterval;
+
+    private final Runnable mStatsReportCallback = new Runnable() {
+        @Override
+        public void run() {
+            mStatsListener.onRefreshStats(mRefreshStats);
+            postDelayed(this, mStatsInterval);
+        }
+    };
+
+
+    final ExpandHandle mExpandHandle = new ExpandHandle();
 
     /**
-     * 主体View
+     * 首次布局时自动刷新的方向
      */
-    private View mContentView;
-    int contentLayoutId;
-    private View mLeftView;
-    private View mRightView;
-    private View mBottomView;
-    private View mTopView;
-
-    private View mRefreshView;
+    @SwipeDirection
+    int mRefreshOnAttach;
 
+    boolean mOverlayMode;
     /**
-     * 当前touch的坐标
+     * overlay模式刷新中，本次手势不是从锁定的边缘View开始，全部交给内容
      */
-    private float mTouchX, mTouchY;
+    private boolean mOverlayPassThrough;
+
     /**
-     * 记录MotionEvent.ACTION_DOWN的坐标
+     * 拖过一半并朝展开方向fling释放时也触发刷新
      */
-    private float downX, downY;
+    boolean mFlingToRefresh = true;
 
+    /**
+     * 重建前正在刷新的方向，在首次布局时恢复
+     */
     @SwipeDirection
-    int mLockDirection;
-
-    int lastDownLeft, lastDownTop;
-
+    int mRestoreDirection;
 
+    /**
+     * 正在滑向展开位置
+     */
+    boolean mExpanding;
 
+    private final Runnable mExpandCallback = new Runnable() {
+        @Override
+        public void run() {
+            startExpand();
+        }
+    };
 
     private Runnable mOnCompletedCallback =new  Runnable() {
 
         @Override
         public void run() {
-            if (mViewDragHelper.smoothSlideViewTo(mContentView, mOriginX, mOriginY)) {
-                ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-            }
+            smoothSlideContentTo(NONE, 0);
         }
     };
 
 
     public SwipeToRefreshLayout(@NonNull Context context, @NonNull View contentView, int directionMask) {
-        super(context);
-        mViewDragHelper = ViewDragHelper.create(this, 1.0f, new ViewDragHelperCallback());
-        mContentView = contentView;
-        mDirectionMask = directionMask;
-        enableSwipe = true;
+        super(context, contentView, directionMask);
     }
 
     public SwipeToRefreshLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
-        mViewDragHelper = ViewDragHelper.create(this, 1.0f, new ViewDragHelperCallback());
-
         TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.SwipeToRefreshLayout);
-        contentLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_contentLayoutId, View.NO_ID);
-        int leftLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_leftView, View.NO_ID);
-        int topLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_topView, View.NO_ID);
-        int rightLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_rightView, View.NO_ID);
-        int bottomLayoutId = ta.getResourceId(R.styleable.SwipeToRefreshLayout_bottomView, View.NO_ID);
-        mDirectionMask = ta.getInt(R.styleable.SwipeToRefreshLayout_swipeDirection, mDirectionMask);
-        mHorizontalFactor = ta.getFloat(R.styleable.SwipeToRefreshLayout_horizontalRangeFactor, 0.3f);
-        mVerticalFactor = ta.getFloat(R.styleable.SwipeToRefreshLayout_verticalRangeFactor, 0.3f);
+        mRefreshOnAttach = ta.getInt(R.styleable.SwipeToRefreshLayout_refreshOnAttach, NONE);
+        setOverlayMode(ta.getBoolean(R.styleable.SwipeToRefreshLayout_overlayMode, false));
+        mFlingToRefresh = ta.getBoolean(R.styleable.SwipeToRefreshLayout_flingToRefresh, true);
         ta.recycle();
-
-        LayoutInflater inflater = LayoutInflater.from(context);
-
-        if (View.NO_ID != leftLayoutId) {
-            mLeftView = inflater.inflate(leftLayoutId, this, false);
-            addView(mLeftView);
-        }
-        if (View.NO_ID != topLayoutId) {
-            mTopView = inflater.inflate(topLayoutId, this, false);
-            addView(mTopView);
-        }
-        if (View.NO_ID != rightLayoutId) {
-            mRightView = inflater.inflate(rightLayoutId, this, false);
-            addView(mRightView);
-        }
-        if (View.NO_ID != bottomLayoutId) {
-            mBottomView = inflater.inflate(bottomLayoutId, this, false);
-            addView(mBottomView);
-        }
-        enableSwipe = true;
     }
 
-    public void setTopView(View view) {
-        if (view != null && view != mTopView) {
-            removeView(mTopView);
-            MarginLayoutParams layoutParams = (MarginLayoutParams) view.getLayoutParams();
-            if (null == layoutParams){
-                layoutParams = new MarginLayoutParams(MarginLayoutParams.MATCH_PARENT,MarginLayoutParams.MATCH_PARENT );
-                view.setLayoutParams(layoutParams);
-            }
-            mTopView = view;
-            addView(mTopView);
-        }
+    /**
+     * 释放时除了拖过刷新点，拖过刷新点的一半并以不小于系统最小fling速度朝展开方向甩出也会触发刷新，默认开启
+     * 关闭后只有拖过刷新点才会刷新
+     *
+     * @param enabled 是否开启
+     */
+    public void setFlingToRefreshEnabled(boolean enabled) {
+        this.mFlingToRefresh = enabled;
     }
 
-
-    public void setBottomView(View view) {
-        if (view != null && view != mBottomView) {
-            removeView(mBottomView);
-            MarginLayoutParams layoutParams = (MarginLayoutParams) view.getLayoutParams();
-            if (null == layoutParams){
-                layoutParams = new MarginLayoutParams(MarginLayoutParams.MATCH_PARENT,MarginLayoutParams.MATCH_PARENT );
-                view.setLayoutParams(layoutParams);
-            }
-            mBottomView = view;
-            addView(mBottomView);
-        }
+    public boolean isFlingToRefreshEnabled() {
+        return mFlingToRefresh;
     }
 
+    /**
+     * overlay模式：内容在视觉上保持不动，只有边缘View滑入盖在内容上方，刷新中内容仍可正常滚动，
+     * 从锁定的边缘View开始的同轴拖拽仍可以拉动或推走它
+     * 实现上ViewDragHelper仍然拖动mContentView的布局位置，同时用反向的translation抵消，
+     * 因此状态、展开、冻结等逻辑与普通模式完全一致；该模式会占用mContentView的translationX/Y
+     * 拖拽中边缘View的摆放和刷新与普通模式相同，没有按露出区域做局部刷新
+     *
+     * @param overlay 是否开启
+     */
+    public void setOverlayMode(boolean overlay) {
+        this.mOverlayMode = overlay;
+        //边缘View需要画在内容之上
+        setChildrenDrawingOrderEnabled(overlay);
+        applyOverlayTranslation();
+        invalidate();
+    }
 
-    public void setLeftView(View view) {
-        if (view != null && view != mLeftView) {
-            removeView(mLeftView);
-            MarginLayoutParams layoutParams = (MarginLayoutParams) view.getLayoutParams();
-            if (null == layoutParams){
-                layoutParams = new MarginLayoutParams(MarginLayoutParams.MATCH_PARENT,MarginLayoutParams.MATCH_PARENT );
-                view.setLayoutParams(layoutParams);
-            }
-            mLeftView = view;
-            addView(mLeftView);
-        }
+    public boolean isOverlayMode() {
+        return mOverlayMode;
     }
 
-    public void setRightView(View view) {
-        if (view != null && view != mRightView) {
-            removeView(mRightView);
-            MarginLayoutParams layoutParams = (MarginLayoutParams) view.getLayoutParams();
-            if (null == layoutParams){
-                layoutParams = new MarginLayoutParams(MarginLayoutParams.MATCH_PARENT,MarginLayoutParams.MATCH_PARENT );
-                view.setLayoutParams(layoutParams);
-            }
-            mRightView = view;
-            addView(mRightView);
-        }
+    private void applyOverlayTranslation() {
+        if (null == mContentView) return;
+        ViewCompat.setTranslationX(mContentView, mOverlayMode ? mOriginX - mContentView.getLeft() : 0);
+        ViewCompat.setTranslationY(mContentView, mOverlayMode ? mOriginY - mContentView.getTop() : 0);
     }
 
-    public void setDamping(float damping) {
-        this.damping = damping;
+    @Override
+    protected int getChildDrawingOrder(int childCount, int i) {
+        int contentIndex = indexOfChild(mContentView);
+        if (contentIndex < 0) return i;
+        //先画mContentView，其余按原顺序
+        if (i == 0) return contentIndex;
+        return i <= contentIndex ? i - 1 : i;
     }
+
     @Override
-    protected void onFinishInflate() {
-        super.onFinishInflate();
-        if (View.NO_ID != contentLayoutId) {
-            mContentView = findViewById(contentLayoutId);
-        } else {
-            throw new IllegalStateException("请为OverScrollLayout添加contentLayoutId属性，以索引目标View");
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            //overlay模式刷新中只处理按在锁定边缘View上的手势，其余不拦截，内容可以正常滚动
+            mOverlayPassThrough = mOverlayMode && mStateMachine.isRefreshing()
+                    && !isTouchInside(getEdgeView(mLockDirection), event);
         }
+        if (mOverlayPassThrough) return false;
+        return super.onInterceptTouchEvent(event);
+    }
 
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mOverlayPassThrough) return false;
+        return super.onTouchEvent(event);
+    }
 
+    private static boolean isTouchInside(View view, MotionEvent event) {
+        return null != view && view.getVisibility() == VISIBLE
+                && event.getX() >= view.getLeft() && event.getX() < view.getRight()
+                && event.getY() >= view.getTop() && event.getY() < view.getBottom();
     }
 
     /**
-     * 设置拖动百分比限制
-     *
-     * @param mHorizontalFactor
+     * overlay模式刷新中内容在视觉上被锁定的边缘View盖住，从它开始的拖拽按拖动mContentView处理
      */
-    public void setHorizontalFactor(float mHorizontalFactor) {
-        this.mHorizontalFactor = mHorizontalFactor;
+    @Override
+    boolean shouldDragContentFrom(View child) {
+        return mOverlayMode && mStateMachine.isRefreshing() && child == getEdgeView(mLockDirection);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        applyOverlayTranslation();
+        if (mRestoreDirection != NONE) {
+            int direction = mRestoreDirection;
+            mRestoreDirection = NONE;
+            if (pinRefresh(direction, false) && null != mOnRefreshRestoredCallback)
+                mOnRefreshRestoredCallback.onRefreshRestored(direction);
+        } else if (mRefreshOnAttach != NONE) {
+            int direction = mRefreshOnAttach;
+            mRefreshOnAttach = NONE;
+            pinRefresh(direction, true);
+        }
     }
+
     /**
-     * 设置拖动百分比限制
+     * 第一次布局完成时直接以direction方向进入LOADING并回调onRefresh，header直接停在展开位置，没有滑动动画
+     * 已经布局过的话在下一次布局时生效
      *
-     * @param mVerticalFactor
+     * @param direction SwipeDirection，NONE取消
      */
-    public void setVerticalFactor(float mVerticalFactor) {
-        this.mVerticalFactor = mVerticalFactor;
-    }
-
-
-
-
-    public void enableSwipe(boolean enableSwipe) {
-        this.enableSwipe = enableSwipe;
+    public void setRefreshOnAttach(@SwipeDirection int direction) {
+        mRefreshOnAttach = direction;
+        if (direction != NONE && ViewCompat.isLaidOut(this)) requestLayout();
     }
 
     /**
-     * 添加可以direction划动
+     * 不做动画，把内容直接放到direction方向完全展开处并进入LOADING
      *
-     * @param direction SwipeDirection
+     * @param notify 是否回调onRefresh，恢复重建前的刷新时不回调
+     * @return 是否进入了LOADING
      */
-    public void enableDragDirection(int direction) {
-        mDirectionMask |= direction;
+    boolean pinRefresh(@SwipeDirection int direction, boolean notify) {
+        if (!isAllowDragDirection(direction) || mStateMachine.isRefreshing()) return false;
+        ensureEdgeView(direction);
+        View edgeView = getEdgeView(direction);
+        if (null == edgeView) return false;
+        mRefreshView = edgeView;
+        moveContentTo(direction, getEdgeExtent(direction));
+        int left = mContentView.getLeft(), top = mContentView.getTop();
+        onContentPositionChanged(left, top, left - mOriginX, top - mOriginY);
+        if (notify) {
+            mStateMachine.startRefresh(direction);
+        } else {
+            mStateMachine.restoreRefresh(direction);
+        }
+        return true;
     }
 
     /**
-     * 删除可以direction划动
-     *
-     * @param direction SwipeDirection
+     * 正在刷新的方向，没有刷新时为NONE
      */
-    public void disableDragDirection(int direction) {
-        mDirectionMask &= ~direction;
+    @SwipeDirection
+    public int getRefreshDirection() {
+        return getState() == LOADING ? mLockDirection : NONE;
     }
 
     /**
-     * 是否禁用了direction
-     *
-     * @param direction SwipeDirection 禁用了该方向
-     * @return boolean
+     * 保存刷新中的方向和可滑动方向，重建后header直接停在展开处并保持LOADING，
+     * 不会再次回调onRefresh，通过{@link OnRefreshRestoredCallback}把进行中的请求接回来。需要设置id
      */
-    public boolean isNotAllowDragDirection(int direction) {
-        return (mDirectionMask & direction) == 0;
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState ss = new SavedState(super.onSaveInstanceState());
+        ss.refreshDirection = getRefreshDirection();
+        ss.directionMask = mDirectionMask;
+        return ss;
     }
 
     @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
-        mHorizontalDragRange = w;
-        mVerticalDragRange = h;
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+        mDirectionMask = ss.directionMask;
+        //重建前已经刷新过，不再自动刷新
+        mRefreshOnAttach = NONE;
+        mRestoreDirection = ss.refreshDirection;
+        if (mRestoreDirection != NONE && ViewCompat.isLaidOut(this)) requestLayout();
+    }
+
+    @Override
+    void onEdgeViewRemoved(View view) {
+        if (view == mRefreshView) mRefreshView = null;
     }
 
     /**
-     * 计算所有ChildView的宽度和高度 然后根据ChildView的计算结果，设置自己的宽和高
+     * 每个边缘View只按自己的spec测量一次，spec稳定后View.measure()会跳过没有requestLayout的子树
      */
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        /**
-         * 获得此ViewGroup上级容器为其推荐的宽和高，以及计算模式
-         */
-        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
-        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
-        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
-        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-
-        // 计算出所有的childView的宽和高
-        measureChildren(widthMeasureSpec, heightMeasureSpec);
-
-        /**
-         * 根据childView计算的出的宽和高，以及设置的margin计算容器的宽和高，主要用于容器是warp_content时
-         */
-        MarginLayoutParams cMarginParams = (MarginLayoutParams) mContentView.getLayoutParams();
-
-        /**
-         * 记录如果是wrap_content是设置的宽和高
-         */
-        int width = cMarginParams.leftMargin + mContentView.getMeasuredWidth() + cMarginParams.rightMargin;
-        int height = cMarginParams.topMargin + mContentView.getMeasuredHeight() + cMarginParams.bottomMargin;
-
+    void measureEdgeViews(int width, int height) {
         int vWithSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
         int vHeightSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
-        mTopView.measure(vWithSpec, vHeightSpec);
-        mBottomView.measure(vWithSpec, vHeightSpec);
+        if (shouldMeasureEdgeView(mTopView, TOP)) mTopView.measure(vWithSpec, vHeightSpec);
+        if (shouldMeasureEdgeView(mBottomView, BOTTOM)) mBottomView.measure(vWithSpec, vHeightSpec);
 
         int hWithSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
         int hHeightSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
-        mLeftView.measure(hWithSpec, hHeightSpec);
-        mRightView.measure(hWithSpec, hHeightSpec);
-
-        setMeasuredDimension(widthMode == MeasureSpec.EXACTLY ? widthSize : width, heightMode == MeasureSpec.EXACTLY ? heightSize : height);
+        if (shouldMeasureEdgeView(mLeftView, LEFT)) mLeftView.measure(hWithSpec, hHeightSpec);
+        if (shouldMeasureEdgeView(mRightView, RIGHT)) mRightView.measure(hWithSpec, hHeightSpec);
     }
 
     @Override
-    protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        if (mState != IDLE) return; //解决header刷新，如setText()方法，造成重新调用onLayout方法，避免影响其他View
-        /**mContentView*/
-        MarginLayoutParams marginLayoutParams = (MarginLayoutParams) mContentView.getLayoutParams();
-        int cl = marginLayoutParams.leftMargin;
-        int ct = marginLayoutParams.topMargin;
-        int cr = cl + mContentView.getMeasuredWidth() - marginLayoutParams.leftMargin - marginLayoutParams.rightMargin;
-        int cb = ct + mContentView.getMeasuredHeight();
-        mContentView.layout(cl, ct, cr, cb);
-        mOriginX = mContentView.getLeft();
-        mOriginY = mContentView.getTop();
-
-        MarginLayoutParams otherParams;
-
-        /**mLeftView*/
-        if (null != mLeftView) {
-            otherParams = (MarginLayoutParams) mLeftView.getLayoutParams();
-            cl = mContentView.getLeft() - marginLayoutParams.leftMargin - (otherParams.leftMargin + mLeftView.getMeasuredWidth() + otherParams.rightMargin);
-            ct = mContentView.getTop() + otherParams.topMargin;
-            cr = mContentView.getLeft() - marginLayoutParams.leftMargin - otherParams.rightMargin;
-            cb = mContentView.getBottom() - otherParams.bottomMargin;
-            mLeftView.layout(cl, ct, cr, cb);
-        }
-        /**mRightView*/
-        if (null != mRightView) {
-            otherParams = (MarginLayoutParams) mRightView.getLayoutParams();
-            cl = mContentView.getRight() + marginLayoutParams.rightMargin + otherParams.leftMargin;
-            ct = mContentView.getTop() + otherParams.topMargin;
-            cr = mContentView.getRight() + marginLayoutParams.rightMargin + otherParams.leftMargin + mRightView.getMeasuredWidth() + otherParams.rightMargin;
-            cb = mContentView.getBottom() - otherParams.bottomMargin;
-            mRightView.layout(cl, ct, cr, cb);
-        }
-
-        /**mTopView*/
-        if (null != mTopView) {
-            otherParams = (MarginLayoutParams) mTopView.getLayoutParams();
-            cl = mContentView.getLeft() + otherParams.leftMargin;
-            ct = mContentView.getTop() - marginLayoutParams.topMargin - mTopView.getMeasuredHeight() - otherParams.topMargin - otherParams.bottomMargin;
-            cr = mContentView.getRight() - otherParams.rightMargin;
-            cb = mContentView.getTop() - marginLayoutParams.topMargin - otherParams.bottomMargin;
-            mTopView.layout(cl, ct, cr, cb);
-        }
-
-
-        /**mBottomView*/
-        if (null != mBottomView) {
-            otherParams = (MarginLayoutParams) mBottomView.getLayoutParams();
-            cl = mContentView.getLeft() + otherParams.leftMargin;
-            ct = mContentView.getBottom() + marginLayoutParams.bottomMargin + otherParams.topMargin;
-            cr = mContentView.getRight() - otherParams.rightMargin;
-            cb = mContentView.getBottom() + marginLayoutParams.bottomMargin + otherParams.topMargin + mBottomView.getMeasuredHeight() + otherParams.bottomMargin;
-            mBottomView.layout(cl, ct, cr, cb);
-        }
-
+    void onDirectionEngaged(@SwipeDirection int direction) {
+        mRefreshView = getEdgeView(direction);
     }
 
-
     /**
-     * 判断是否可以direction这个方向的划动
-     *
-     * @param direction DragDirection
-     * @return boolean
+     * 由状态机决定移动是否交给边缘View，并记录最后一次移动供释放时使用
      */
-    private boolean isAllowDragDirection(int direction) {
-        return direction == (mDirectionMask & direction);
-    }
-
-
-    class ViewDragHelperCallback extends ViewDragHelper.Callback {
-        int mLastDragState;
-        int mDragOffset;
-
-        @Override
-        public boolean tryCaptureView(View child, int pointerId) {
-            return child == mContentView && enableSwipe;
+    @Override
+    boolean onEdgeMove(@SwipeDirection int direction, int offset, boolean contentCanScroll) {
+        if (!mStateMachine.onPointerMove(direction, offset, getEdgeExtentOrZero(direction), contentCanScroll)) {
+            return false;
         }
-
-
-        @Override
-        public void onViewReleased(View releasedChild, float xvel, float yvel) {
-            super.onViewReleased(releasedChild, xvel, yvel);
-            int offset;
-            switch (mCurrentDirection) {
-                case LEFT:
-                    offset = mContentView.getLeft() - mOriginX;
-                    if (null != mLeftView && offset >= mLeftView.getWidth()
-                            && mViewDragHelper.settleCapturedViewAt(mContentView.getLeft() - mLeftView.getLeft(), mOriginY)) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        mLockDirection = LEFT;
-                    } else {
-                        if (mViewDragHelper.settleCapturedViewAt(mOriginX, mOriginY)) {
-                            ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        }
-
-                    }
-
-                    break;
-                case RIGHT:
-                    offset = mOriginX - mContentView.getLeft();
-                    if (null != mRightView && offset >= mRightView.getWidth()
-                            && mViewDragHelper.settleCapturedViewAt(mContentView.getRight() - mRightView.getRight(), mOriginY)) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        mLockDirection = RIGHT;
-                    } else {
-                        if (mViewDragHelper.settleCapturedViewAt(mOriginX, mOriginY)) {
-                            ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        }
-
-                    }
-                    break;
-                case TOP:
-                    offset = mContentView.getTop() - mOriginY;
-                    if (null != mTopView && offset >= mTopView.getHeight()
-                            && mViewDragHelper.settleCapturedViewAt(mOriginX, mContentView.getTop() - mTopView.getTop())) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        mLockDirection = TOP;
-                    } else {
-                        if (mViewDragHelper.settleCapturedViewAt(mOriginX, mOriginY)) {
-                            ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        }
-
-                    }
-                    break;
-
-                case BOTTOM:
-                    offset = mOriginY - mContentView.getTop();
-                    if (null != mBottomView && offset >= mBottomView.getHeight()
-                            && mViewDragHelper.settleCapturedViewAt(mOriginX, mContentView.getBottom() - mBottomView.getBottom())) {
-                        ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        mLockDirection = BOTTOM;
-                    } else {
-                        if (mViewDragHelper.settleCapturedViewAt(mOriginX, mOriginY)) {
-                            ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        }
-
-                    }
-
-                    break;
-            }
+        if (null == getEdgeView(direction)) {
+            //延迟inflate的边缘View在第一次被接受时才创建，补记它的展开距离
+            ensureEdgeView(direction);
+            mStateMachine.onPointerMove(direction, offset, getEdgeExtentOrZero(direction), contentCanScroll);
         }
+        return true;
+    }
 
+    private int getEdgeExtentOrZero(@SwipeDirection int direction) {
+        return null == getEdgeView(direction) ? 0 : getEdgeExtent(direction);
+    }
 
-        @Override
-        public void onViewPositionChanged(final View changedView, int left, final int top, final int dx, final int dy) {
-            super.onViewPositionChanged(changedView, left, top, dx, dy);
-            mDragOffset = dx != 0 ? Math.abs(left) : Math.abs(top);
-            MarginLayoutParams marginLayoutParams  = (MarginLayoutParams) mContentView.getLayoutParams();
-            switch (mCurrentDirection) {
-                case LEFT:
-                case RIGHT:
-                    layoutLeftAndRight(marginLayoutParams);
-                    break;
-                case TOP:
-                case BOTTOM:
-                    layoutTopAndBottom(marginLayoutParams);
-                    break;
-                case NONE:
-                    layoutLeftAndRight(marginLayoutParams);
-                    layoutTopAndBottom(marginLayoutParams);
-                    break;
-            }
-            if (null != mOnSwipeListener)
-                mOnSwipeListener.onSwipe(mCurrentDirection,
-                        mDragOffset,
-                        dx != 0 ? getViewHorizontalDragRange(mContentView) : getViewVerticalDragRange(mContentView)
-                );
-
-        }
-
-        @Override
-        public void onViewDragStateChanged(final int state) {
-            super.onViewDragStateChanged(state);
+    @Override
+    void onContentReleased(float xvel, float yvel) {
+        if (null != mMetricsTracker) mMetricsTracker.onReleased();
+        //展开后的移动以展开方向记录，反向拖拽也按展开方向停靠
+        int direction = mLockDirection != NONE ? mLockDirection : mCurrentDirection;
+        //方向和距离使用状态机在拖拽中记录的最后一次移动
+        float velocity = mFlingToRefresh ? DragMath.openingVelocity(direction, xvel, yvel) : 0;
+        int offset = mStateMachine.onRelease(velocity, mMinFlingVelocity);
+        settleContentAt(offset > 0 ? direction : NONE, offset);
+    }
 
-            Log.e("zhou", "==============onViewDragStateChanged==================" + state);
-            if (mLastDragState == ViewDragHelper.STATE_SETTLING && state == ViewDragHelper.STATE_DRAGGING && mLockDirection == NONE) {
-                if (mViewDragHelper.smoothSlideViewTo(mContentView, mOriginX, mOriginY)) {
-                    ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                }
-            }
-            switch (state) {
-                case ViewDragHelper.STATE_DRAGGING:
-                    if (!(mState == COMPLETED || mState == LOADING)) {
-                        changeState(DRAGGING);
-                    }
-                    break;
-                case ViewDragHelper.STATE_IDLE:
-                    if (mState != LOADING){
-                        if (COMPLETED == mState && mViewDragHelper.smoothSlideViewTo(mContentView, mOriginX, mOriginY)){
-                            ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                        }else{
-                            changeState(
-                                    mContentView.getTop() != mOriginY || mContentView.getLeft() != mOriginX ?
-                                            LOADING : IDLE);
-                        }
-                    }
-
-                    mCurrentDirection = NONE;
-                    if (mState != LOADING && mContentView.getLeft() == mOriginX && mContentView.getTop() == mOriginY)
-                        mLockDirection = NONE;
-                    Log.e("zhou", "==onViewDragStateChanged===mLockDirection====" + mLockDirection);
-                    Log.i("zhou", "***************************END*********************************************");
-                    break;
-                case ViewDragHelper.STATE_SETTLING:
-                    if (!(mState == COMPLETED || mState == LOADING))changeState(SETTLING);
-                    break;
+    @Override
+    void onContentPositionChanged(int left, int top, int dx, int dy) {
+        if (mOverlayMode) applyOverlayTranslation();
+        if (null != mMetricsTracker) mMetricsTracker.onContentMoved();
+        if (null != mOnPrepareRefreshCallback) updatePrepareRefresh();
+        if (mCoalesceDragCallbacks) {
+            //只记录最新的位置，每帧合并回调一次
+            mPendingDirection = mCurrentDirection;
+            mPendingLeft = left;
+            mPendingTop = top;
+            mPendingDx += dx;
+            mPendingDy += dy;
+            if (!mPositionDispatchScheduled) {
+                mPositionDispatchScheduled = true;
+                ViewCompat.postOnAnimation(this, mPositionDispatchCallback);
             }
-            mLastDragState = state;
-        }
-
-        @Override
-        public int getViewHorizontalDragRange(View child) {
-            return (int) (mHorizontalDragRange * mHorizontalFactor);
-        }
-
-        @Override
-        public int getViewVerticalDragRange(View child) {
-            return (int) (mVerticalDragRange * mVerticalFactor);
+            return;
         }
+        dispatchPositionChanged(mCurrentDirection, left, top, dx, dy);
+    }
 
-        @Override
-        public int clampViewPositionHorizontal(View child, int left, int dx) {
-            int result = mOriginX;
-            if (mLockDirection == NONE) {
-                int leftBounds, rightBounds;
-                if (isAllowDragDirection(LEFT)
-                        && !canScrollRight(mContentView)
-                        && left >= mOriginX
-                        && mCurrentDirection == LEFT) {
-                    mRefreshView = mLeftView;
-                    leftBounds = getLeft();
-                    rightBounds = getViewHorizontalDragRange(child);
-                    result = Math.min(Math.max(left, leftBounds), rightBounds);
-                    result -=(int)(dx * damping);
-                }
-                if (isAllowDragDirection(RIGHT)
-                        && !canScrollLeft(mContentView)
-                        && left <= mOriginX
-                        && mCurrentDirection == RIGHT) {
-                    mRefreshView = mRightView;
-                    leftBounds = -getViewHorizontalDragRange(child);
-                    rightBounds = getLeft();
-                    result = Math.min(Math.max(left, leftBounds), rightBounds);
-                    result -=(int)(dx * damping);
-                }
-            } else {
-                if (mLockDirection == TOP || mLockDirection == BOTTOM) result = child.getLeft();
-                else {
-                    if (mCurrentDirection == TOP || mCurrentDirection == BOTTOM)
-                        result = child.getLeft();
-                    else {
-                        if (mLockDirection == LEFT)
-                            result = Math.max(mOriginX, Math.min(left, getViewHorizontalDragRange(child)));
-                        else
-                            result = Math.min(mOriginX, Math.max(left, -getViewHorizontalDragRange(child)));
-                        result -=(int)(dx * damping);
-                    }
+    /**
+     * 拖拽越过预备阈值且仍朝展开方向时回调onPrepareRefresh，退回阈值以下时回调onCancelPrepare
+     */
+    private void updatePrepareRefresh() {
+        int direction = mCurrentDirection;
+        if (direction == NONE || mStateMachine.isRefreshing() || null == getEdgeView(direction)) return;
+        int extent = getEdgeExtent(direction);
+        if (extent <= 0) return;
+        boolean crossed = getDragOffset(direction) >= extent * mPrepareRefreshThreshold;
+        if (mPreparedDirection == NONE) {
+            if (crossed && getState() == DRAGGING) {
+                mVelocityEstimator.computeVelocity();
+                if (DragMath.openingVelocity(direction, mVelocityEstimator.getXVelocity(), mVelocityEstimator.getYVelocity()) >= 0) {
+                    mPreparedDirection = direction;
+                    mOnPrepareRefreshCallback.onPrepareRefresh(direction);
                 }
-
             }
-            return result;
+        } else if (!crossed) {
+            cancelPrepareRefresh();
         }
+    }
 
+    private void cancelPrepareRefresh() {
+        if (mPreparedDirection == NONE) return;
+        int direction = mPreparedDirection;
+        mPreparedDirection = NONE;
+        if (null != mOnPrepareRefreshCallback) mOnPrepareRefreshCallback.onCancelPrepare(direction);
+    }
 
-        @Override
-        public int clampViewPositionVertical(View child, int top, int dy) {
-            int result = mOriginY;
-            if (mLockDirection == NONE) {
-                int topBounds, bottomBounds;
-                if (isAllowDragDirection(TOP)
-                        && !canScrollBottom(child)
-                        && top >= mOriginY
-                        && mCurrentDirection == TOP) {
-                    mRefreshView = mTopView;
-                    topBounds = getTop();
-                    bottomBounds = getViewVerticalDragRange(child);
-                    result = Math.min(Math.max(top , topBounds), bottomBounds);
-                    result -=(int)(dy * damping);
-                }
-                if (isAllowDragDirection(BOTTOM)
-                        && !canScrollTop(child)
-                        && top <= mOriginY
-                        && mCurrentDirection == BOTTOM) {
-                    mRefreshView = mBottomView;
-                    topBounds = -getViewVerticalDragRange(child);
-                    bottomBounds = getTop();
-                    result = Math.min(Math.max(top, topBounds), bottomBounds);
-                    result -=(int)(dy * damping);
-                }
-            } else {
-                if (mLockDirection == LEFT || mLockDirection == RIGHT) result = child.getTop();
-                else {
-                    if (mCurrentDirection == LEFT || mCurrentDirection == RIGHT)
-                        result = child.getTop();
-                    else {
-                        if (mLockDirection == TOP)
-                            result = Math.max(mOriginY, Math.min(top, getViewVerticalDragRange(child)));
-                        else
-                            result = Math.min(mOriginY, Math.max(top, -getViewVerticalDragRange(child)));
-                        result -=(int)(dy * damping);
-                    }
-                }
-
-            }
-            return result;
-        }
-
-        private void layoutTopAndBottom(MarginLayoutParams marginLayoutParams) {
-            MarginLayoutParams otherParams;
-            if (null != mTopView) {
-                otherParams = (MarginLayoutParams) mTopView.getLayoutParams();
-                mTopView.layout(mTopView.getLeft(),
-                        mContentView.getTop() - marginLayoutParams.topMargin - mTopView.getMeasuredHeight() - otherParams.topMargin - otherParams.bottomMargin,
-                        mTopView.getRight(),
-                        mContentView.getTop() - marginLayoutParams.topMargin - otherParams.bottomMargin);
-
-                if (mTopView instanceof OnRefreshListener)
-                    ((OnRefreshListener) mTopView).onPositionChange(TOP, mState,
-                            mTopView.getHeight(), getViewVerticalDragRange(mContentView),
-                            mContentView.getLeft(), mContentView.getTop(),
-                            lastDownLeft, lastDownTop,
-                            mTouchX, mTouchY
-                    );
-            }
-            if (null != mBottomView) {
-                otherParams = (MarginLayoutParams) mBottomView.getLayoutParams();
-                mBottomView.layout(mTopView.getLeft(),
-                        mContentView.getBottom() + marginLayoutParams.bottomMargin + otherParams.topMargin,
-                        mTopView.getRight(),
-                        mContentView.getBottom() + marginLayoutParams.bottomMargin + otherParams.topMargin + mBottomView.getMeasuredHeight() + otherParams.bottomMargin);
-                if (mBottomView instanceof OnRefreshListener)
-                    ((OnRefreshListener) mBottomView).onPositionChange(BOTTOM, mState,
-                            -mBottomView.getHeight(), getViewVerticalDragRange(mContentView),
-                            mContentView.getLeft(), mContentView.getTop(),
-                            lastDownLeft, lastDownTop,
-                            mTouchX, mTouchY
-                    );
-
-            }
-        }
+    /**
+     * 把还没有回调的合并位置立即回调，保证header先收到位置再收到状态变化
+     */
+    void flushPendingPosition() {
+        if (!mPositionDispatchScheduled) return;
+        removeCallbacks(mPositionDispatchCallback);
+        mPositionDispatchScheduled = false;
+        int dx = mPendingDx, dy = mPendingDy;
+        mPendingDx = 0;
+        mPendingDy = 0;
+        dispatchPositionChanged(mPendingDirection, mPendingLeft, mPendingTop, dx, dy);
+    }
+
+    private void dispatchPositionChanged(@SwipeDirection int direction, int left, int top, int dx, int dy) {
+        switch (direction) {
+            case LEFT:
+            case RIGHT:
+                dispatchLeftAndRight();
+                break;
+            case TOP:
+            case BOTTOM:
+                dispatchTopAndBottom();
+                break;
+            case NONE:
+                dispatchLeftAndRight();
+                dispatchTopAndBottom();
+                break;
+        }
+        if (null != mOnSwipeListener)
+            mOnSwipeListener.onSwipe(direction,
+                    dx != 0 ? Math.abs(left) : Math.abs(top),
+                    dx != 0 ? (int) (mHorizontalDragRange * mHorizontalFactor) : (int) (mVerticalDragRange * mVerticalFactor)
+            );
+    }
+
+    private void dispatchTopAndBottom() {
+        int range = (int) (mVerticalDragRange * mVerticalFactor);
+        if (mTopView instanceof OnRefreshListener)
+            ((OnRefreshListener) mTopView).onPositionChange(TOP, getState(),
+                    mTopView.getHeight(), range,
+                    mContentView.getLeft(), mContentView.getTop(),
+                    lastDownLeft, lastDownTop,
+                    mTouchX, mTouchY
+            );
+        if (mBottomView instanceof OnRefreshListener)
+            ((OnRefreshListener) mBottomView).onPositionChange(BOTTOM, getState(),
+                    -mBottomView.getHeight(), range,
+                    mContentView.getLeft(), mContentView.getTop(),
+                    lastDownLeft, lastDownTop,
+                    mTouchX, mTouchY
+            );
+    }
+
+    private void dispatchLeftAndRight() {
+        int range = (int) (mHorizontalDragRange * mHorizontalFactor);
+        if (mLeftView instanceof OnRefreshListener)
+            ((OnRefreshListener) mLeftView).onPositionChange(LEFT, getState(),
+                    mLeftView.getWidth(), range,
+                    mContentView.getLeft(), mContentView.getTop(),
+                    lastDownLeft, lastDownTop,
+                    mTouchX, mTouchY
+            );
+        if (mRightView instanceof OnRefreshListener)
+            ((OnRefreshListener) mRightView).onPositionChange(RIGHT, getState(),
+                    -mRightView.getWidth(), range,
+                    mContentView.getLeft(), mContentView.getTop(),
+                    lastDownLeft, lastDownTop,
+                    mTouchX, mTouchY
+            );
+    }
 
-        private void layoutLeftAndRight(MarginLayoutParams marginLayoutParams) {
-            MarginLayoutParams otherParams;
-            if (null != mLeftView) {
-                otherParams = (MarginLayoutParams) mLeftView.getLayoutParams();
-                mLeftView.layout(
-                        mContentView.getLeft() - marginLayoutParams.leftMargin - (otherParams.leftMargin + mLeftView.getMeasuredWidth() + otherParams.rightMargin),
-                        mLeftView.getTop(),
-                        mContentView.getLeft() - marginLayoutParams.leftMargin - otherParams.rightMargin,
-                        mLeftView.getBottom());
-                if (mLeftView instanceof OnRefreshListener)
-                    ((OnRefreshListener) mLeftView).onPositionChange(LEFT, mState,
-                            mLeftView.getWidth(), getViewHorizontalDragRange(mContentView),
-                            mContentView.getLeft(), mContentView.getTop(),
-                            lastDownLeft, lastDownTop,
-                            mTouchX, mTouchY
-                    );
-            }
-            if (null != mRightView) {
-                otherParams = (MarginLayoutParams) mRightView.getLayoutParams();
-                mRightView.layout(mContentView.getRight() + marginLayoutParams.rightMargin + otherParams.leftMargin,
-                        mRightView.getTop(),
-                        mContentView.getRight() + marginLayoutParams.rightMargin + otherParams.leftMargin + mRightView.getMeasuredWidth() + otherParams.rightMargin,
-                        mRightView.getBottom());
-                if (mRightView instanceof OnRefreshListener)
-                    ((OnRefreshListener) mRightView).onPositionChange(RIGHT, mState,
-                            -mRightView.getWidth(),getViewHorizontalDragRange(mContentView),
-                            mContentView.getLeft(), mContentView.getTop(),
-                            lastDownLeft, lastDownTop,
-                            mTouchX, mTouchY
-                    );
-            }
+    @Override
+    void onDragStateChanged(int state) {
+        if (null != mMetricsTracker) mMetricsTracker.onDragStateChanged(state);
+        switch (state) {
+            case ViewDragHelper.STATE_DRAGGING:
+                cancelExpand();
+                mStateMachine.onDragStarted();
+                break;
+            case ViewDragHelper.STATE_SETTLING:
+                mStateMachine.onSettling();
+                break;
+            case ViewDragHelper.STATE_IDLE:
+                if (mStateMachine.onIdle(isContentAtOrigin())) {
+                    smoothSlideContentTo(NONE, 0);
+                }
+                onExpandSettled();
+                break;
         }
     }
 
-    private void changeState(int state) {
-        if (null != mRefreshView && mRefreshView instanceof OnRefreshListener){
-            this.mState = state;
+    private void dispatchState(@State int state) {
+        if (mRefreshView instanceof OnRefreshListener) {
             OnRefreshListener onRefresh = (OnRefreshListener) mRefreshView;
             switch (state) {
                 case IDLE:
                     onRefresh.onIdle();
-                    Log.i("zhou", "--------onIdle-----------");
                     break;
                 case DRAGGING:
                     onRefresh.onDragging();
-                    Log.i("zhou", "--------onDragging-----------");
                     break;
                 case LOADING:
                     onRefresh.onLoading();
-                    Log.i("zhou", "--------onLoading-----------");
-                    if (null != mOnRefreshCallback)
-                        mOnRefreshCallback.onRefresh(mLockDirection);
                     break;
                 case SETTLING:
                     onRefresh.onSettling();
-                    Log.i("zhou", "--------onSettling-----------");
                     break;
                 case COMPLETED:
                     onRefresh.onCompleted();
-                    Log.i("zhou", "--------onCompleted-----------");
                     break;
             }
         }
-
     }
 
-
-
-
-    @Override
-    public void computeScroll() {
-        if (mViewDragHelper.continueSettling(true)) {
-            ViewCompat.postInvalidateOnAnimation(this);
-        }
+    @State
+    public int getState() {
+        return mStateMachine.getState();
     }
 
-
     @Override
-    public boolean onInterceptTouchEvent(MotionEvent event) {
-        boolean handled = false;
-        if (isEnabled()) {
-            calculateForCurrentDirection(event);
-            handled = mContentView != null && mViewDragHelper.shouldInterceptTouchEvent(event);
-        } else {
-            mViewDragHelper.cancel();
-        }
-        if (!handled) {
-            mCurrentDirection = NONE;
-        }
-        return handled || super.onInterceptTouchEvent(event);
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (null != mMetricsTracker) mMetricsTracker.onDraw();
     }
 
-
     @Override
-    public boolean onTouchEvent(MotionEvent event) {
-        if (isEnabled()) {//对于非scroll视图或者view（ViewGroup在onInterceptTouchEvent方法中判断）
-            calculateForCurrentDirection(event);
-        }
-        mViewDragHelper.processTouchEvent(event);
-        return true;
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (null != mStatsListener) postDelayed(mStatsReportCallback, mStatsInterval);
     }
 
-
-    private void calculateForCurrentDirection(MotionEvent event) {
-        mTouchX = event.getRawX();
-        mTouchY = event.getRawY();
-        final int action = event.getActionMasked();
-        if (mCurrentDirection == NONE) {
-            switch (action) {
-                case MotionEvent.ACTION_DOWN:
-                    downX = mTouchX;
-                    downY = mTouchY;
-                    lastDownLeft = mContentView.getLeft();
-                    lastDownTop = mContentView.getTop();
-                    break;
-                case MotionEvent.ACTION_MOVE:
-                    float slope = (mTouchY - downY) / (mTouchX - downX);
-                    mCurrentDirection = Math.abs(slope) >= 1 ? (mTouchY >= downY ? TOP : BOTTOM) : (mTouchX >= downX ? LEFT : RIGHT);
-                    Log.e("zhou", "++++++++++mCurrentDirection++++++++++++++++++" + mCurrentDirection);
-                    break;
-            }
-        }
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (null != mMetricsTracker) mMetricsTracker.stop();
+        removeCallbacks(mStatsReportCallback);
+        cancelExpand();
+        flushPendingPosition();
+        cancelPrepareRefresh();
     }
 
 
@@ -816,134 +606,234 @@ public class SwipeToRefreshLayout extends ViewGroup {
      * @return true 有移动距离，反之，已经到达该点
      */
     public boolean reset() {
-        boolean isReset = mViewDragHelper.smoothSlideViewTo(mContentView, mOriginX, mOriginY);
-        if (isReset) {
-            ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-        }
-        changeState(IDLE);
+        boolean isReset = smoothSlideContentTo(NONE, 0);
+        mStateMachine.reset();
         return isReset;
     }
 
     public void refreshCompleted(long delay) {
-        if (mState == LOADING ){//只在刷新状态调用
-            changeState(COMPLETED);
+        if (mStateMachine.onRefreshCompleted()) {//只在刷新状态生效
             postDelayed(mOnCompletedCallback, delay);
         }
     }
 
-    public void expandLeft() {
-        if (!isAllowDragDirection(LEFT))return;
-        if(reset()){
-            postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    expandLeft();
-                }
-            }, 200);
-        }else{
-            if (null != mLeftView && mViewDragHelper.smoothSlideViewTo(mContentView, mContentView.getLeft() - mLeftView.getLeft(), mOriginY)) {
-                ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                mLockDirection = LEFT;
-                mCurrentDirection = LEFT;
-                mRefreshView = mLeftView;
-            }
+    /**
+     * 展开到direction方向并进入LOADING
+     * 内容不在原点时先复位，等复位的滑动真正结束后再接着展开，没有固定延时
+     *
+     * @return 展开完成时结束的ExpandHandle，每次返回同一个实例
+     */
+    public ExpandHandle expand(@SwipeDirection int direction) {
+        removeCallbacks(mExpandCallback);
+        mExpanding = false;
+        mExpandHandle.arm(direction);
+        if (direction == NONE || !isAllowDragDirection(direction)) {
+            mExpandHandle.cancel();
+        } else if (!reset()) {
+            startExpand();
+        }
+        //否则等复位结束的STATE_IDLE
+        return mExpandHandle;
+    }
+
+    void startExpand() {
+        if (!mExpandHandle.isPending() || mExpanding) return;
+        int direction = mExpandHandle.getDirection();
+        ensureEdgeView(direction);
+        View edgeView = getEdgeView(direction);
+        if (null == edgeView) {
+            mExpandHandle.cancel();
+            return;
+        }
+        //滑动开始时会同步回调SETTLING，需要先切换header
+        mCurrentDirection = direction;
+        mRefreshView = edgeView;
+        mExpanding = true;
+        if (smoothSlideContentTo(direction, getEdgeExtent(direction))) {
+            mStateMachine.onExpand(direction);
+        } else {
+            mExpanding = false;
+            mExpandHandle.cancel();
         }
-
     }
 
-    public void expandRight() {
-        if (!isAllowDragDirection(RIGHT))return;
-        if (reset()){
-            postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    expandRight();
-                }
-            }, 200);
-        }else {
-            if (null != mRightView && mViewDragHelper.smoothSlideViewTo(mContentView, mContentView.getRight() - mRightView.getRight(), mOriginY)) {
-                ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                mLockDirection = RIGHT;
-                mCurrentDirection = RIGHT;
-                mRefreshView = mRightView;
+    /**
+     * STATE_IDLE时调用：复位结束则开始展开，展开结束则完成ExpandHandle
+     */
+    private void onExpandSettled() {
+        if (!mExpandHandle.isPending()) return;
+        if (mExpanding) {
+            mExpanding = false;
+            int direction = mExpandHandle.getDirection();
+            if (getDragOffset(direction) >= getEdgeExtent(direction)) {
+                mExpandHandle.reveal();
+            } else {
+                mExpandHandle.cancel();
             }
+        } else if (isContentAtOrigin()) {
+            //在ViewDragHelper的回调之外开始新的滑动
+            ViewCompat.postOnAnimation(this, mExpandCallback);
         }
     }
 
-    public void expandTop() {
-        if (!isAllowDragDirection(TOP))return;
-        if (reset()){
-            postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    expandTop();
-                }
-            }, 200);
-        }else {
-            if (isAllowDragDirection(TOP) && null != mTopView && mViewDragHelper.smoothSlideViewTo(mContentView, mOriginX, mContentView.getTop() - mTopView.getTop())) {
-                ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                mLockDirection = TOP;
-                mCurrentDirection = TOP;
-                mRefreshView = mTopView;
-            }
-        }
+    private void cancelExpand() {
+        removeCallbacks(mExpandCallback);
+        mExpanding = false;
+        mExpandHandle.cancel();
+    }
 
+    public ExpandHandle expandLeft() {
+        return expand(LEFT);
     }
 
-    public void expandBottom() {
-        if (!isAllowDragDirection(BOTTOM))return;
-        if (reset()){
-            postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    expandBottom();
-                }
-            }, 200);
-        }else {
-            if (isAllowDragDirection(BOTTOM) && null != mBottomView && mViewDragHelper.smoothSlideViewTo(mContentView, mOriginX, mContentView.getBottom() - mBottomView.getBottom())) {
-                ViewCompat.postInvalidateOnAnimation(SwipeToRefreshLayout.this);
-                mLockDirection = BOTTOM;
-                mCurrentDirection = BOTTOM;
-                mRefreshView = mBottomView;
-            }
+    public ExpandHandle expandRight() {
+        return expand(RIGHT);
+    }
+
+    public ExpandHandle expandTop() {
+        return expand(TOP);
+    }
+
+    public ExpandHandle expandBottom() {
+        return expand(BOTTOM);
+    }
+
+
+    /**
+     * 设置拖拽回调的分发方式
+     * false(默认)：每次位置变化都同步回调OnRefreshListener.onPositionChange和OnSwipeListener.onSwipe；
+     * true：只记录最新位置，在下一帧绘制之前合并回调一次，状态变化前会先补发，适合高刷新率屏幕和onPositionChange较重的header
+     *
+     * @param coalesce 是否按帧合并
+     */
+    public void setCoalesceDragCallbacks(boolean coalesce) {
+        if (!coalesce) flushPendingPosition();
+        this.mCoalesceDragCallbacks = coalesce;
+    }
+
+
+    OnSwipeListener mOnSwipeListener;
+
+    public void setOnSwipeListener(OnSwipeListener mOnSwipeListener) {
+        this.mOnSwipeListener = mOnSwipeListener;
+    }
+
+    public interface OnSwipeListener {
+        void onSwipe(@SwipeDirection int direction, int distance, int max);
+    }
+
+
+    /**
+     * 开启手势帧耗时统计，每次手势回到IDLE时回调一次，传null关闭
+     * 开启期间的手势同时累计到{@link #getGestureMetricsSummary()}
+     * 依赖Choreographer，API 16以下不做统计
+     *
+     * @param listener OnGestureMetricsListener
+     */
+    public void setOnGestureMetricsListener(OnGestureMetricsListener listener) {
+        if (null != mMetricsTracker) {
+            mMetricsTracker.stop();
+            mMetricsTracker = null;
         }
+        if (null != listener && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mMetricsTracker = new GestureMetricsTracker(this, listener, mGestureMetricsSummary);
+        }
+    }
+
+    /**
+     * 开启手势帧耗时统计以来所有手势的累计，可随时读取，调用其reset()清空
+     */
+    public GestureMetricsSummary getGestureMetricsSummary() {
+        return mGestureMetricsSummary;
+    }
+
+    public interface OnGestureMetricsListener {
+        /**
+         * @param metrics 只在回调期间有效
+         */
+        void onGestureMetrics(GestureMetrics metrics);
     }
 
 
     /**
-     * 支持margin设置，直接使用系统的MarginLayoutParams
+     * 各方向累计的刷新耗时、取消、超时统计，可随时读取
      */
-    @Override
-    public LayoutParams generateLayoutParams(AttributeSet attrs) {
-        return new MarginLayoutParams(getContext(), attrs);
+    public RefreshStats getRefreshStats() {
+        return mRefreshStats;
     }
 
+    /**
+     * LOADING超过timeout毫秒计一次超时，只用于统计，不会结束刷新，<=0不统计超时
+     */
+    public void setRefreshTimeout(long timeout) {
+        this.mRefreshTimeout = timeout;
+    }
 
-    public boolean canScrollTop(View view) {
-        return ViewCompat.canScrollVertically(view, 1);
+    /**
+     * 在attach期间每隔interval毫秒回调一次累计的统计，传null关闭
+     * 统计是累计值，需要按周期上报的可以在回调里调用{@link RefreshStats#reset()}
+     */
+    public void setOnRefreshStatsListener(OnRefreshStatsListener listener, long interval) {
+        removeCallbacks(mStatsReportCallback);
+        if (null != listener && interval <= 0) {
+            throw new IllegalArgumentException("interval必须大于0: " + interval);
+        }
+        this.mStatsListener = listener;
+        this.mStatsInterval = interval;
+        if (null != listener && ViewCompat.isAttachedToWindow(this)) {
+            postDelayed(mStatsReportCallback, interval);
+        }
     }
 
-    public boolean canScrollBottom(View view) {
-        return ViewCompat.canScrollVertically(view, -1);
+    public interface OnRefreshStatsListener {
+        void onRefreshStats(RefreshStats stats);
     }
 
-    public boolean canScrollLeft(View view) {
-        return ViewCompat.canScrollHorizontally(view, 1);
+
+    OnPrepareRefreshCallback mOnPrepareRefreshCallback;
+
+    /**
+     * 设置预备刷新回调，拖拽中提前表明刷新意图，可用于预热连接或发起可取消的请求
+     */
+    public void setOnPrepareRefreshCallback(OnPrepareRefreshCallback callback) {
+        if (null == callback) cancelPrepareRefresh();
+        this.mOnPrepareRefreshCallback = callback;
     }
 
-    public boolean canScrollRight(View view) {
-        return ViewCompat.canScrollHorizontally(view, -1);
+    /**
+     * @param threshold 拖拽距离占完全展开距离的比例，(0, 1]，默认0.7
+     */
+    public void setPrepareRefreshThreshold(float threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("threshold必须在(0, 1]之间: " + threshold);
+        }
+        this.mPrepareRefreshThreshold = threshold;
     }
 
+    public interface OnPrepareRefreshCallback {
+        /**
+         * 拖拽越过阈值并仍朝展开方向，随后要么进入LOADING(onRefresh)，要么onCancelPrepare
+         */
+        void onPrepareRefresh(@SwipeDirection int direction);
 
-    OnSwipeListener mOnSwipeListener;
+        /**
+         * 退回阈值以下、释放后没有刷新或离开窗口
+         */
+        void onCancelPrepare(@SwipeDirection int direction);
+    }
 
-    public void setOnSwipeListener(OnSwipeListener mOnSwipeListener) {
-        this.mOnSwipeListener = mOnSwipeListener;
+
+    OnRefreshRestoredCallback mOnRefreshRestoredCallback;
+
+    public void setOnRefreshRestoredCallback(OnRefreshRestoredCallback callback) {
+        this.mOnRefreshRestoredCallback = callback;
     }
 
-    public interface OnSwipeListener {
-        void onSwipe(@SwipeDirection int direction, int distance, int max);
+    public interface OnRefreshRestoredCallback {
+        /**
+         * 重建后恢复了direction方向的LOADING，此时应接回进行中的请求并在完成时调用refreshCompleted
+         */
+        void onRefreshRestored(@SwipeDirection int direction);
     }
 
 
@@ -957,4 +847,39 @@ public class SwipeToRefreshLayout extends ViewGroup {
         void onRefresh(@SwipeDirection int direction);
     }
 
+
+    static class SavedState extends BaseSavedState {
+        int refreshDirection;
+        int directionMask;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        SavedState(Parcel in) {
+            super(in);
+            refreshDirection = in.readInt();
+            directionMask = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(refreshDirection);
+            out.writeInt(directionMask);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
 }
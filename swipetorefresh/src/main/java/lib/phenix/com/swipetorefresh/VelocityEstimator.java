@@ -0,0 +1,102 @@
+package lib.phenix.com.swipetorefresh;
+
+/**
+ * 固定大小的速度估计，对最近一段时间的采样做最小二乘直线拟合，斜率即速度
+ * 采样保存在预分配的环形数组中，添加采样和计算都不分配对象；
+ * 相邻采样间隔过大视为手指已经停住，只用停住之后的采样
+ */
+
+public final class VelocityEstimator {
+
+    private static final int HISTORY_SIZE = 20;
+    /**
+     * 只使用最近100ms内的采样
+     */
+    private static final long HORIZON_MS = 100;
+    /**
+     * 相邻采样超过40ms视为中间停顿过
+     */
+    private static final long ASSUME_STOPPED_MS = 40;
+
+    private final float[] mX = new float[HISTORY_SIZE];
+    private final float[] mY = new float[HISTORY_SIZE];
+    private final long[] mTime = new long[HISTORY_SIZE];
+    private int mHead;
+    private int mCount;
+
+    private float mXVelocity;
+    private float mYVelocity;
+
+    public void clear() {
+        mHead = 0;
+        mCount = 0;
+        mXVelocity = 0;
+        mYVelocity = 0;
+    }
+
+    /**
+     * @param timeMs 采样时间，单调递增，与最新采样时间相同时覆盖最新采样，更早的采样被忽略
+     */
+    public void addSample(float x, float y, long timeMs) {
+        if (mCount > 0) {
+            long last = mTime[mHead];
+            if (timeMs < last) return;
+            if (timeMs == last) {
+                mX[mHead] = x;
+                mY[mHead] = y;
+                return;
+            }
+            mHead = (mHead + 1) % HISTORY_SIZE;
+        }
+        mX[mHead] = x;
+        mY[mHead] = y;
+        mTime[mHead] = timeMs;
+        if (mCount < HISTORY_SIZE) mCount++;
+    }
+
+    /**
+     * 根据当前采样计算速度，结果通过{@link #getXVelocity()}、{@link #getYVelocity()}读取
+     */
+    public void computeVelocity() {
+        mXVelocity = 0;
+        mYVelocity = 0;
+        if (mCount < 2) return;
+        long newest = mTime[mHead];
+        long previous = newest;
+        int n = 0;
+        double sumT = 0, sumTT = 0, sumX = 0, sumTX = 0, sumY = 0, sumTY = 0;
+        for (int k = 0, i = mHead; k < mCount; k++, i = (i - 1 + HISTORY_SIZE) % HISTORY_SIZE) {
+            long time = mTime[i];
+            if (newest - time > HORIZON_MS || previous - time > ASSUME_STOPPED_MS) break;
+            double t = time - newest;
+            sumT += t;
+            sumTT += t * t;
+            sumX += mX[i];
+            sumTX += t * mX[i];
+            sumY += mY[i];
+            sumTY += t * mY[i];
+            previous = time;
+            n++;
+        }
+        if (n < 2) return;
+        double denominator = n * sumTT - sumT * sumT;
+        if (denominator == 0) return;
+        //斜率单位是px/ms，转为px/s
+        mXVelocity = (float) ((n * sumTX - sumT * sumX) / denominator * 1000);
+        mYVelocity = (float) ((n * sumTY - sumT * sumY) / denominator * 1000);
+    }
+
+    /**
+     * @return px/s
+     */
+    public float getXVelocity() {
+        return mXVelocity;
+    }
+
+    /**
+     * @return px/s
+     */
+    public float getYVelocity() {
+        return mYVelocity;
+    }
+}
@@ -0,0 +1,94 @@
+package lib.phenix.com.swipetorefresh;
+
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+
+/**
+ * ViewPager与水平方向边缘View的手势仲裁，通过{@link BaseSwipeLayout#setScrollEdgeDetector(ScrollEdgeDetector)}安装：
+ * <pre>
+ * layout.setScrollEdgeDetector(new ViewPagerArbiter(layout, pager));
+ * </pre>
+ * 只有停在第一页时才能拉出LEFT，停在最后一页时才能拉出RIGHT，翻页过程中不会抢手势；
+ * 通过页面回调记录当前页和滚动状态，不在MOVE时查询ViewPager，ViewPager开始拖拽后本次手势直接跳过拦截判断
+ * 竖直方向交给构造时传入的实现，没有时按View在{@link ScrollEdgeDetectors}中查找一次并缓存，换页时重新查找
+ * 不再使用时调用{@link #release()}解除页面监听，再用setScrollEdgeDetector换回其他实现
+ */
+
+public final class ViewPagerArbiter extends ViewPager.SimpleOnPageChangeListener implements ScrollEdgeDetector {
+
+    private final BaseSwipeLayout mLayout;
+    private final ViewPager mPager;
+    /**
+     * 竖直方向的实现，为null时按View查找
+     */
+    private final ScrollEdgeDetector mVerticalDetector;
+    private int mCurrentItem;
+    private int mScrollState = ViewPager.SCROLL_STATE_IDLE;
+    private ScrollEdgeDetector mVertical;
+    private View mVerticalView;
+
+    /**
+     * @param layout 安装到的布局，ViewPager开始拖拽时通知它放弃本次手势
+     * @param pager  mContentView或其中的ViewPager
+     */
+    public ViewPagerArbiter(BaseSwipeLayout layout, ViewPager pager) {
+        this(layout, pager, null);
+    }
+
+    /**
+     * @param layout           安装到的布局，ViewPager开始拖拽时通知它放弃本次手势
+     * @param pager            mContentView或其中的ViewPager
+     * @param verticalDetector 竖直方向的实现，如安装前设置的ScrollEdgeDetector，null表示使用默认实现
+     */
+    public ViewPagerArbiter(BaseSwipeLayout layout, ViewPager pager, ScrollEdgeDetector verticalDetector) {
+        this.mLayout = layout;
+        this.mPager = pager;
+        this.mVerticalDetector = verticalDetector;
+        this.mCurrentItem = pager.getCurrentItem();
+        pager.addOnPageChangeListener(this);
+    }
+
+    /**
+     * 解除对ViewPager的页面监听
+     */
+    public void release() {
+        mPager.removeOnPageChangeListener(this);
+    }
+
+    @Override
+    public void onPageSelected(int position) {
+        mCurrentItem = position;
+        mVerticalView = null;
+    }
+
+    @Override
+    public void onPageScrollStateChanged(int state) {
+        mScrollState = state;
+        if (state == ViewPager.SCROLL_STATE_DRAGGING) mLayout.onContentClaimedGesture();
+    }
+
+    @Override
+    public boolean accepts(View view) {
+        return true;
+    }
+
+    @Override
+    public boolean canScrollVertically(View view, int direction) {
+        if (null != mVerticalDetector) return mVerticalDetector.canScrollVertically(view, direction);
+        if (mVerticalView != view) {
+            mVertical = ScrollEdgeDetectors.find(view);
+            mVerticalView = view;
+        }
+        return mVertical.canScrollVertically(view, direction);
+    }
+
+    @Override
+    public boolean canScrollHorizontally(View view, int direction) {
+        //翻页中的ViewPager总是可以滚动，避免滑到一半被抢走手势
+        if (mScrollState != ViewPager.SCROLL_STATE_IDLE) return true;
+        PagerAdapter adapter = mPager.getAdapter();
+        if (null == adapter) return false;
+        return direction < 0 ? mCurrentItem > 0 : mCurrentItem < adapter.getCount() - 1;
+    }
+}
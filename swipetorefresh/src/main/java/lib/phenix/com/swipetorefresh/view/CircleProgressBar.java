@@ -73,6 +73,30 @@ public class CircleProgressBar extends AppCompatImageView {
     private boolean mCircleBackgroundEnabled;
     private int[] mColors = new int[]{Color.BLACK};
 
+    /**
+     * 0%~100%的文字表，避免onDraw中每帧String.format
+     */
+    private static final String[] PERCENT_LABELS = new String[101];
+
+    static {
+        for (int i = 0; i < PERCENT_LABELS.length; i++) {
+            PERCENT_LABELS[i] = i + "%";
+        }
+    }
+
+    /**
+     * 当前绘制的文字及其宽度，只在progress或textSize改变时重新计算
+     */
+    private String mProgressText;
+    private float mProgressTextWidth;
+    private boolean mTextWidthDirty = true;
+    /**
+     * 基线偏移只与字体有关，只在textSize改变时重新计算
+     */
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+    private float mTextBaselineOffset;
+    private boolean mTextMetricsDirty = true;
+
     public CircleProgressBar(Context context) {
         super(context);
         init(context, null, 0);
@@ -134,6 +158,7 @@ public class CircleProgressBar extends AppCompatImageView {
         mTextPaint.setColor(mTextColor);
         mTextPaint.setTextSize(mTextSize);
         mTextPaint.setAntiAlias(true);
+        mTextPaint.setTextAlign(Paint.Align.LEFT);
         a.recycle();
         mProgressDrawable = new MaterialProgressDrawable(getContext(), this);
         mProgressDrawable.setStartEndTrim(0, (float) 0.75);
@@ -147,6 +172,17 @@ public class CircleProgressBar extends AppCompatImageView {
 
     public void setTextColor(int color) {
         this.mTextColor = color;
+        mTextPaint.setColor(color);
+        invalidate();
+    }
+
+    public void setTextSize(int textSize) {
+        if (mTextSize == textSize) return;
+        this.mTextSize = textSize;
+        mTextPaint.setTextSize(textSize);
+        mTextMetricsDirty = true;
+        mTextWidthDirty = true;
+        invalidate();
     }
 
     private boolean elevationSupported() {
@@ -225,13 +261,34 @@ public class CircleProgressBar extends AppCompatImageView {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
         if (mIfDrawText) {
-            String text = String.format("%s%%", mProgress);
-            int x = getWidth() / 2 - text.length() * mTextSize / 4;
-            int y = getHeight() / 2 + mTextSize / 4;
-            canvas.drawText(text, x, y, mTextPaint);
+            if (mTextMetricsDirty) {
+                updateTextMetrics();
+            }
+            if (mTextWidthDirty) {
+                updateTextWidth();
+            }
+            canvas.drawText(mProgressText, getWidth() / 2f - mProgressTextWidth / 2f, getHeight() / 2f + mTextBaselineOffset, mTextPaint);
         }
     }
 
+    /**
+     * 根据当前字体重新计算基线偏移，使用预分配的FontMetrics
+     */
+    private void updateTextMetrics() {
+        mTextPaint.getFontMetrics(mFontMetrics);
+        mTextBaselineOffset = (mFontMetrics.descent - mFontMetrics.ascent) / 2f - mFontMetrics.descent;
+        mTextMetricsDirty = false;
+    }
+
+    /**
+     * 根据当前progress重新测量文字宽度
+     */
+    private void updateTextWidth() {
+        mProgressText = mProgress >= 0 && mProgress < PERCENT_LABELS.length ? PERCENT_LABELS[mProgress] : mProgress + "%";
+        mProgressTextWidth = mTextPaint.measureText(mProgressText);
+        mTextWidthDirty = false;
+    }
+
     @Override
     final public void setImageResource(int resId) {
 
@@ -349,8 +406,9 @@ public class CircleProgressBar extends AppCompatImageView {
     }
 
     public void setProgress(int progress) {
-        if (getMax() > 0) {
+        if (getMax() > 0 && mProgress != progress) {
             mProgress = progress;
+            mTextWidthDirty = true;
         }
         invalidate();
     }
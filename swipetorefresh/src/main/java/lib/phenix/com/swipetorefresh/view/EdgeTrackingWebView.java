@@ -0,0 +1,204 @@
+package lib.phenix.com.swipetorefresh.view;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.webkit.JavascriptInterface;
+import android.webkit.WebView;
+
+/**
+ * 在UI线程缓存滚动边界的WebView，{@link lib.phenix.com.swipetorefresh.ScrollEdgeDetectors}判断时直接读取缓存，
+ * 不在每次MOVE时同步查询内核
+ * 页面级边界(纵向和横向)由滚动位置和computeXxxScrollRange()直接算出，在滚动、尺寸变化、内容高度变化时更新，不需要等到overScroll；
+ * 加载新页面时旧页面的状态失效，需要在WebViewClient.onPageStarted/onPageFinished中调用{@link #onPageStarted()}/{@link #onPageFinished()}
+ * 页面内部的可滚动元素需要调用{@link #enableInnerScrollReporting()}，{@link #onPageFinished()}会注入上报脚本，
+ * 由页面脚本在触摸和滚动时上报手指所在滚动元素的状态
+ */
+
+public class EdgeTrackingWebView extends WebView {
+
+    static final String BRIDGE_NAME = "SwipeEdgeBridge";
+
+    /**
+     * 分别找到触摸目标最近的可纵向、可横向滚动的祖先元素，touchstart和scroll时上报它们是否在顶部/底部、左边/右边，
+     * 没有时都视为在边界
+     */
+    static final String INNER_SCROLL_SCRIPT = "(function(){"
+            + "if(window.__swipeEdge)return;window.__swipeEdge=true;var v=null,h=null;"
+            + "function find(e,x){for(;e&&e!==document.body&&e!==document.documentElement;e=e.parentElement){"
+            + "var s=getComputedStyle(e),o=x?s.overflowX:s.overflowY;"
+            + "if((o==='auto'||o==='scroll')&&(x?e.scrollWidth>e.clientWidth:e.scrollHeight>e.clientHeight))return e;}"
+            + "return null;}"
+            + "function report(){var t=!v||v.scrollTop<=0;"
+            + "var b=!v||v.scrollTop+v.clientHeight>=v.scrollHeight-1;"
+            + "var l=!h||h.scrollLeft<=0;"
+            + "var r=!h||h.scrollLeft+h.clientWidth>=h.scrollWidth-1;"
+            + BRIDGE_NAME + ".onInnerScroll(t,b,l,r);}"
+            + "document.addEventListener('touchstart',function(ev){v=find(ev.target,false);h=find(ev.target,true);"
+            + "report();},true);"
+            + "document.addEventListener('scroll',function(ev){if(ev.target===v||ev.target===h)report();},true);"
+            + "})()";
+
+    private boolean mAtTop = true;
+    private boolean mAtBottom;
+    private boolean mAtLeft = true;
+    private boolean mAtRight;
+    private boolean mInnerAtTop = true;
+    private boolean mInnerAtBottom = true;
+    private boolean mInnerAtLeft = true;
+    private boolean mInnerAtRight = true;
+    private boolean mInnerScrollReporting;
+    private int mLastContentHeight;
+
+    public EdgeTrackingWebView(Context context) {
+        super(context);
+    }
+
+    public EdgeTrackingWebView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public EdgeTrackingWebView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        updatePageEdges();
+    }
+
+    /**
+     * 内核滚动时会带上滚动范围调用这里，用它修正滚动中的边界；页面不可滚动时范围为0，同时在两侧边界
+     */
+    @Override
+    protected boolean overScrollBy(int deltaX, int deltaY, int scrollX, int scrollY, int scrollRangeX,
+                                   int scrollRangeY, int maxOverScrollX, int maxOverScrollY, boolean isTouchEvent) {
+        int newScrollY = scrollY + deltaY;
+        mAtTop = newScrollY <= 0;
+        mAtBottom = newScrollY >= scrollRangeY;
+        int newScrollX = scrollX + deltaX;
+        mAtLeft = newScrollX <= 0;
+        mAtRight = newScrollX >= scrollRangeX;
+        return super.overScrollBy(deltaX, deltaY, scrollX, scrollY, scrollRangeX, scrollRangeY,
+                maxOverScrollX, maxOverScrollY, isTouchEvent);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updatePageEdges();
+    }
+
+    /**
+     * 内容高度没有回调，绘制时比较一次，变化(如加载更多、图片加载完成)后重新计算边界
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int contentHeight = getContentHeight();
+        if (contentHeight != mLastContentHeight) {
+            mLastContentHeight = contentHeight;
+            updatePageEdges();
+        }
+    }
+
+    /**
+     * 开始加载新页面，在WebViewClient.onPageStarted中调用：丢弃旧页面的边界和内部滚动元素状态，
+     * 按新页面重新计算，内部元素在脚本上报前视为在边界
+     */
+    public void onPageStarted() {
+        resetInnerEdges();
+        mLastContentHeight = getContentHeight();
+        updatePageEdges();
+    }
+
+    /**
+     * 页面加载完成，在WebViewClient.onPageFinished中调用：按最终的内容高度重新计算边界，并注入内部滚动上报脚本
+     */
+    public void onPageFinished() {
+        mLastContentHeight = getContentHeight();
+        updatePageEdges();
+        injectInnerScrollScript();
+    }
+
+    /**
+     * 用滚动位置和滚动范围计算页面级边界
+     */
+    private void updatePageEdges() {
+        int scrollY = getScrollY();
+        int maxScrollY = computeVerticalScrollRange() - computeVerticalScrollExtent();
+        mAtTop = scrollY <= 0;
+        mAtBottom = scrollY >= maxScrollY;
+        int scrollX = getScrollX();
+        int maxScrollX = computeHorizontalScrollRange() - computeHorizontalScrollExtent();
+        mAtLeft = scrollX <= 0;
+        mAtRight = scrollX >= maxScrollX;
+    }
+
+    private void resetInnerEdges() {
+        mInnerAtTop = true;
+        mInnerAtBottom = true;
+        mInnerAtLeft = true;
+        mInnerAtRight = true;
+    }
+
+    /**
+     * 注册页面上报内部滚动元素状态的JS接口，需要API 17，更低版本addJavascriptInterface存在安全问题，直接忽略
+     */
+    @SuppressLint({"JavascriptInterface", "AddJavascriptInterface"})
+    public void enableInnerScrollReporting() {
+        if (mInnerScrollReporting || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1) return;
+        mInnerScrollReporting = true;
+        addJavascriptInterface(new Bridge(), BRIDGE_NAME);
+    }
+
+    /**
+     * 注入上报脚本，{@link #onPageFinished()}会调用，重复注入会被脚本忽略
+     */
+    public void injectInnerScrollScript() {
+        if (!mInnerScrollReporting) return;
+        resetInnerEdges();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            evaluateJavascript(INNER_SCROLL_SCRIPT, null);
+        } else {
+            loadUrl("javascript:" + INNER_SCROLL_SCRIPT);
+        }
+    }
+
+    /**
+     * 缓存的纵向滚动能力，与ViewCompat.canScrollVertically方向一致
+     */
+    public boolean canScrollVerticallyCached(int direction) {
+        return direction < 0 ? !(mAtTop && mInnerAtTop) : !(mAtBottom && mInnerAtBottom);
+    }
+
+    /**
+     * 缓存的横向滚动能力，与ViewCompat.canScrollHorizontally方向一致
+     */
+    public boolean canScrollHorizontallyCached(int direction) {
+        return direction < 0 ? !(mAtLeft && mInnerAtLeft) : !(mAtRight && mInnerAtRight);
+    }
+
+    /**
+     * JS回调在后台线程，切回UI线程更新缓存
+     */
+    class Bridge {
+
+        @JavascriptInterface
+        public void onInnerScroll(final boolean atTop, final boolean atBottom,
+                                  final boolean atLeft, final boolean atRight) {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    mInnerAtTop = atTop;
+                    mInnerAtBottom = atBottom;
+                    mInnerAtLeft = atLeft;
+                    mInnerAtRight = atRight;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package lib.phenix.com.swipetorefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GestureMetricsTest {
+
+    @Test
+    public void frameBudgetFollowsRefreshRate() {
+        assertEquals(GestureMetrics.DEFAULT_FRAME_BUDGET_NANOS, GestureMetrics.frameBudgetNanos(60f));
+        assertEquals(11111111L, GestureMetrics.frameBudgetNanos(90f));
+        assertEquals(8333333L, GestureMetrics.frameBudgetNanos(120f));
+    }
+
+    @Test
+    public void invalidRefreshRateFallsBackToDefault() {
+        assertEquals(GestureMetrics.DEFAULT_FRAME_BUDGET_NANOS, GestureMetrics.frameBudgetNanos(0f));
+        assertEquals(GestureMetrics.DEFAULT_FRAME_BUDGET_NANOS, GestureMetrics.frameBudgetNanos(-1f));
+        assertEquals(GestureMetrics.DEFAULT_FRAME_BUDGET_NANOS, GestureMetrics.frameBudgetNanos(Float.NaN));
+    }
+
+    @Test
+    public void jankThresholdIsOneAndHalfBudget() {
+        GestureMetrics metrics = new GestureMetrics();
+        metrics.mFrameBudgetNanos = GestureMetrics.frameBudgetNanos(120f);
+        assertEquals(12499999L, metrics.getJankThresholdNanos());
+        metrics.reset();
+        assertEquals(GestureMetrics.DEFAULT_FRAME_BUDGET_NANOS, metrics.getFrameBudgetNanos());
+    }
+
+    @Test
+    public void summaryAccumulatesGestures() {
+        GestureMetricsSummary summary = new GestureMetricsSummary();
+        GestureMetrics metrics = new GestureMetrics();
+
+        metrics.mDraggingFrames = 30;
+        metrics.mDraggingJankFrames = 3;
+        metrics.mSettlingFrames = 10;
+        metrics.mDragToDraw.record(4);
+        metrics.mDragToDraw.record(20);
+        metrics.mReleaseToLoadingMs = 40;
+        metrics.mLoadingToCompletedMs = 900;
+        summary.add(metrics);
+
+        metrics.reset();
+        metrics.mDraggingFrames = 10;
+        metrics.mDraggingJankFrames = 1;
+        metrics.mSettlingFrames = 10;
+        metrics.mSettlingJankFrames = 5;
+        metrics.mDragToDraw.record(70);
+        summary.add(metrics);
+
+        assertEquals(2, summary.getGestures());
+        assertEquals(40, summary.getDraggingFrames());
+        assertEquals(4, summary.getDraggingJankFrames());
+        assertEquals(0.1f, summary.getDraggingJankRate(), 1e-6f);
+        assertEquals(0.25f, summary.getSettlingJankRate(), 1e-6f);
+        assertEquals(3, summary.getDragToDraw().getCount());
+        assertEquals(70, summary.getDragToDraw().getMax());
+        assertEquals("未进入LOADING的手势不计入", 1, summary.getReleaseToLoading().getCount());
+        assertEquals(1, summary.getLoadingToCompleted().getCount());
+
+        summary.reset();
+        assertEquals(0, summary.getGestures());
+        assertEquals(0, summary.getDragToDraw().getCount());
+        assertEquals(0f, summary.getDraggingJankRate(), 0f);
+    }
+
+    @Test
+    public void histogramAddMergesBuckets() {
+        LatencyHistogram a = new LatencyHistogram(10, 20);
+        LatencyHistogram b = new LatencyHistogram(10, 20);
+        a.record(5);
+        b.record(15);
+        b.record(50);
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(50, a.getMax());
+        assertEquals(1, a.getBucketValue(0));
+        assertEquals(1, a.getBucketValue(1));
+        assertEquals(1, a.getBucketValue(2));
+        assertEquals(23, a.getMean());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void histogramAddRejectsDifferentBounds() {
+        new LatencyHistogram(10, 20).add(new LatencyHistogram(10, 30));
+    }
+}
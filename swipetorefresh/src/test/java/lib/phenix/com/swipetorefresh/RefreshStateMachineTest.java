@@ -0,0 +1,751 @@
+package lib.phenix.com.swipetorefresh;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static lib.phenix.com.swipetorefresh.RefreshStateMachine.COMPLETED;
+import static lib.phenix.com.swipetorefresh.RefreshStateMachine.DRAGGING;
+import static lib.phenix.com.swipetorefresh.RefreshStateMachine.IDLE;
+import static lib.phenix.com.swipetorefresh.RefreshStateMachine.LOADING;
+import static lib.phenix.com.swipetorefresh.RefreshStateMachine.SETTLING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RefreshStateMachineTest {
+
+    private static final int NONE = BaseSwipeLayout.NONE;
+    private static final int LEFT = BaseSwipeLayout.LEFT;
+    private static final int TOP = BaseSwipeLayout.TOP;
+    private static final int RIGHT = BaseSwipeLayout.RIGHT;
+    private static final int BOTTOM = BaseSwipeLayout.BOTTOM;
+
+    private static final int EXTENT = 100;
+    private static final float MIN_FLING = 50;
+
+    /**
+     * 状态机可到达的(状态, 锁定方向)组合
+     */
+    private enum Config {
+        IDLE_FREE, DRAGGING_FREE, SETTLING_FREE, SETTLING_ARMED, DRAGGING_ARMED, LOADING_TOP, COMPLETED_TOP
+    }
+
+    /**
+     * 所有输入，参数取刷新点两侧和其他方向的代表值
+     */
+    private enum Event {
+        DRAG_STARTED, SETTLING, MOVE_CONTENT_SCROLLABLE, MOVE_BELOW, MOVE_PAST, MOVE_CROSS_AXIS,
+        RELEASE_BELOW, RELEASE_PAST, RELEASE_FLING_HALF, RELEASE_OTHER_DIRECTION,
+        IDLE_AT_ORIGIN, IDLE_AWAY, REFRESH_COMPLETED, RESET, START_REFRESH, RESTORE_REFRESH, EXPAND
+    }
+
+    private static final String VOID = "-";
+
+    @Test
+    public void everyStateAndEvent() {
+        int checked = 0;
+        for (Config config : Config.values()) {
+            for (Event event : Event.values()) {
+                Expected expected = expected(config, event);
+                Recorder recorder = new Recorder();
+                RefreshStateMachine machine = new RefreshStateMachine(recorder);
+                enter(machine, config);
+                recorder.effects.clear();
+
+                String result = fire(machine, event);
+
+                String where = config + " + " + event;
+                assertEquals(where + " 返回值", expected.result, result);
+                assertEquals(where + " 状态", expected.state, machine.getState());
+                assertEquals(where + " 锁定方向", expected.lock, machine.getLockDirection());
+                assertEquals(where + " 副作用", Arrays.asList(expected.effects), recorder.effects);
+                checked++;
+            }
+        }
+        assertEquals(Config.values().length * Event.values().length, checked);
+    }
+
+    @Test
+    public void thresholdFollowsLastMove() {
+        RefreshStateMachine machine = new RefreshStateMachine(new Recorder());
+        machine.onDragStarted();
+        assertFalse(machine.isThresholdReached());
+        machine.onPointerMove(TOP, EXTENT - 1, EXTENT, false);
+        assertFalse(machine.isThresholdReached());
+        machine.onPointerMove(TOP, EXTENT, EXTENT, false);
+        assertTrue(machine.isThresholdReached());
+        machine.onPointerMove(TOP, 10, EXTENT, false);
+        assertFalse(machine.isThresholdReached());
+        machine.onPointerMove(TOP, EXTENT, 0, false);
+        assertFalse("没有边缘View时不存在刷新点", machine.isThresholdReached());
+    }
+
+    @Test
+    public void releaseUsesLastMove() {
+        RefreshStateMachine machine = new RefreshStateMachine(new Recorder());
+        machine.onDragStarted();
+        machine.onPointerMove(BOTTOM, 130, EXTENT, false);
+        assertEquals(EXTENT, machine.onRelease(0, MIN_FLING));
+        assertEquals(BOTTOM, machine.getLockDirection());
+        assertFalse("释放后清除记录的移动", machine.isThresholdReached());
+
+        machine.onIdle(true);
+        machine.onDragStarted();
+        machine.onPointerMove(TOP, 60, EXTENT, false);
+        assertEquals(EXTENT, machine.onRelease(MIN_FLING, MIN_FLING));
+        assertEquals(TOP, machine.getLockDirection());
+    }
+
+    @Test
+    public void declinedMoveForgetsPreviousMove() {
+        RefreshStateMachine machine = new RefreshStateMachine(new Recorder());
+        machine.onDragStarted();
+        assertTrue(machine.onPointerMove(TOP, EXTENT, EXTENT, false));
+        assertFalse("交给内容滚动", machine.onPointerMove(TOP, 0, EXTENT, true));
+        assertFalse(machine.isThresholdReached());
+        assertEquals(0, machine.onRelease(1000, MIN_FLING));
+        assertEquals(NONE, machine.getLockDirection());
+
+        machine.onIdle(true);
+        machine.startRefresh(TOP);
+        assertTrue(machine.onPointerMove(TOP, EXTENT, EXTENT, false));
+        assertFalse("刷新中不处理另一轴的移动", machine.onPointerMove(LEFT, 10, EXTENT, false));
+        assertEquals(0, machine.onRelease(0, MIN_FLING));
+        assertEquals(TOP, machine.getLockDirection());
+    }
+
+    @Test
+    public void releaseWithoutMoveReturnsToOrigin() {
+        RefreshStateMachine machine = new RefreshStateMachine(new Recorder());
+        machine.onDragStarted();
+        assertEquals(0, machine.onRelease(1000, MIN_FLING));
+        assertEquals(NONE, machine.getLockDirection());
+    }
+
+    @Test
+    public void dragStartedForgetsPreviousGesture() {
+        RefreshStateMachine machine = new RefreshStateMachine(new Recorder());
+        machine.onPointerMove(TOP, 150, EXTENT, false);
+        machine.onDragStarted();
+        assertFalse(machine.isThresholdReached());
+        assertEquals(0, machine.onRelease(0, MIN_FLING));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullEffectsRejected() {
+        new RefreshStateMachine(null);
+    }
+
+    /**
+     * 随机事件序列，模拟布局对状态机输出的响应(释放后滑动、停止时回调onIdle)，检查：
+     * 1. 只有越过刷新点的释放、展开、直接开始/恢复刷新才能进入LOADING
+     * 2. COMPLETED总能滑回原点并回到IDLE
+     * 3. RefreshStats与状态机一致
+     */
+    @Test
+    public void randomEventSequences() {
+        for (long seed = 0; seed < 500; seed++) {
+            Harness harness = new Harness(seed);
+            try {
+                for (int step = 0; step < 300; step++) {
+                    harness.step();
+                    harness.checkInvariants();
+                }
+                harness.drain();
+                harness.checkInvariants();
+            } catch (AssertionError e) {
+                AssertionError error = new AssertionError("seed " + seed + ": " + e.getMessage() + "\n" + harness.log);
+                error.initCause(e);
+                throw error;
+            }
+        }
+    }
+
+    private static void enter(RefreshStateMachine machine, Config config) {
+        switch (config) {
+            case IDLE_FREE:
+                break;
+            case DRAGGING_FREE:
+                machine.onDragStarted();
+                machine.onPointerMove(TOP, 10, EXTENT, false);
+                break;
+            case SETTLING_FREE:
+                machine.onSettling();
+                break;
+            case SETTLING_ARMED:
+                machine.onDragStarted();
+                machine.onPointerMove(TOP, 120, EXTENT, false);
+                machine.onRelease(0, MIN_FLING);
+                machine.onSettling();
+                break;
+            case DRAGGING_ARMED:
+                enter(machine, Config.SETTLING_ARMED);
+                machine.onDragStarted();
+                break;
+            case LOADING_TOP:
+                machine.startRefresh(TOP);
+                break;
+            case COMPLETED_TOP:
+                machine.startRefresh(TOP);
+                machine.onRefreshCompleted();
+                break;
+            default:
+                fail("未知配置 " + config);
+        }
+    }
+
+    private static String fire(RefreshStateMachine machine, Event event) {
+        switch (event) {
+            case DRAG_STARTED:
+                machine.onDragStarted();
+                return VOID;
+            case SETTLING:
+                machine.onSettling();
+                return VOID;
+            case MOVE_CONTENT_SCROLLABLE:
+                return String.valueOf(machine.onPointerMove(TOP, 0, EXTENT, true));
+            case MOVE_BELOW:
+                return String.valueOf(machine.onPointerMove(TOP, 30, EXTENT, false));
+            case MOVE_PAST:
+                return String.valueOf(machine.onPointerMove(TOP, 120, EXTENT, false));
+            case MOVE_CROSS_AXIS:
+                return String.valueOf(machine.onPointerMove(LEFT, 30, EXTENT, false));
+            case RELEASE_BELOW:
+                return String.valueOf(machine.onRelease(TOP, 30, EXTENT, 0, MIN_FLING));
+            case RELEASE_PAST:
+                return String.valueOf(machine.onRelease(TOP, 120, EXTENT, 0, MIN_FLING));
+            case RELEASE_FLING_HALF:
+                return String.valueOf(machine.onRelease(TOP, 60, EXTENT, MIN_FLING, MIN_FLING));
+            case RELEASE_OTHER_DIRECTION:
+                return String.valueOf(machine.onRelease(BOTTOM, 120, EXTENT, 0, MIN_FLING));
+            case IDLE_AT_ORIGIN:
+                return String.valueOf(machine.onIdle(true));
+            case IDLE_AWAY:
+                return String.valueOf(machine.onIdle(false));
+            case REFRESH_COMPLETED:
+                return String.valueOf(machine.onRefreshCompleted());
+            case RESET:
+                machine.reset();
+                return VOID;
+            case START_REFRESH:
+                machine.startRefresh(BOTTOM);
+                return VOID;
+            case RESTORE_REFRESH:
+                machine.restoreRefresh(BOTTOM);
+                return VOID;
+            case EXPAND:
+                machine.onExpand(BOTTOM);
+                return VOID;
+            default:
+                throw new AssertionError("未知事件 " + event);
+        }
+    }
+
+    /**
+     * 期望结果表，副作用记为 S状态 / R刷新方向 / L锁定方向
+     */
+    private static Expected expected(Config config, Event event) {
+        switch (config) {
+            case IDLE_FREE:
+                switch (event) {
+                    case DRAG_STARTED:
+                        return new Expected(VOID, DRAGGING, NONE, "S1");
+                    case SETTLING:
+                        return new Expected(VOID, SETTLING, NONE, "S3");
+                    case MOVE_CONTENT_SCROLLABLE:
+                        return new Expected("false", IDLE, NONE);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("true", DRAGGING, NONE, "S1");
+                    case RELEASE_BELOW:
+                        return new Expected("0", IDLE, NONE);
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                        return new Expected("100", IDLE, TOP, "L2");
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("100", IDLE, BOTTOM, "L8");
+                    case IDLE_AT_ORIGIN:
+                        return new Expected("false", IDLE, NONE);
+                    case IDLE_AWAY:
+                        return new Expected("true", IDLE, NONE);
+                    case REFRESH_COMPLETED:
+                        return new Expected("false", IDLE, NONE);
+                    case RESET:
+                        return new Expected(VOID, IDLE, NONE);
+                    case EXPAND:
+                        return new Expected(VOID, IDLE, BOTTOM, "L8");
+                    default:
+                        return startedFromRest(event);
+                }
+            case DRAGGING_FREE:
+                switch (event) {
+                    case DRAG_STARTED:
+                        return new Expected(VOID, DRAGGING, NONE);
+                    case SETTLING:
+                        return new Expected(VOID, SETTLING, NONE, "S3");
+                    case MOVE_CONTENT_SCROLLABLE:
+                        return new Expected("false", DRAGGING, NONE);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("true", DRAGGING, NONE);
+                    case RELEASE_BELOW:
+                        return new Expected("0", DRAGGING, NONE);
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                        return new Expected("100", DRAGGING, TOP, "L2");
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("100", DRAGGING, BOTTOM, "L8");
+                    case IDLE_AT_ORIGIN:
+                        return new Expected("false", IDLE, NONE, "S0");
+                    case IDLE_AWAY:
+                        return new Expected("true", DRAGGING, NONE);
+                    case REFRESH_COMPLETED:
+                        return new Expected("false", DRAGGING, NONE);
+                    case RESET:
+                        return new Expected(VOID, IDLE, NONE, "S0");
+                    case EXPAND:
+                        return new Expected(VOID, DRAGGING, BOTTOM, "L8");
+                    default:
+                        return startedFromRest(event);
+                }
+            case SETTLING_FREE:
+                switch (event) {
+                    case DRAG_STARTED:
+                        return new Expected(VOID, DRAGGING, NONE, "S1");
+                    case SETTLING:
+                        return new Expected(VOID, SETTLING, NONE);
+                    case MOVE_CONTENT_SCROLLABLE:
+                        return new Expected("false", SETTLING, NONE);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("true", DRAGGING, NONE, "S1");
+                    case RELEASE_BELOW:
+                        return new Expected("0", SETTLING, NONE);
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                        return new Expected("100", SETTLING, TOP, "L2");
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("100", SETTLING, BOTTOM, "L8");
+                    case IDLE_AT_ORIGIN:
+                        return new Expected("false", IDLE, NONE, "S0");
+                    case IDLE_AWAY:
+                        return new Expected("true", SETTLING, NONE);
+                    case REFRESH_COMPLETED:
+                        return new Expected("false", SETTLING, NONE);
+                    case RESET:
+                        return new Expected(VOID, IDLE, NONE, "S0");
+                    case EXPAND:
+                        return new Expected(VOID, SETTLING, BOTTOM, "L8");
+                    default:
+                        return startedFromRest(event);
+                }
+            case SETTLING_ARMED:
+                switch (event) {
+                    case DRAG_STARTED:
+                        return new Expected(VOID, DRAGGING, TOP, "S1");
+                    case SETTLING:
+                        return new Expected(VOID, SETTLING, TOP);
+                    case MOVE_CONTENT_SCROLLABLE:
+                        return new Expected("false", SETTLING, TOP);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("true", DRAGGING, TOP, "S1");
+                    case RELEASE_BELOW:
+                        return new Expected("0", SETTLING, NONE, "L0");
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                        return new Expected("100", SETTLING, TOP);
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("100", SETTLING, BOTTOM, "L8");
+                    case IDLE_AT_ORIGIN:
+                        return new Expected("false", IDLE, NONE, "S0", "L0");
+                    case IDLE_AWAY:
+                        return new Expected("false", LOADING, TOP, "S2", "R2");
+                    case REFRESH_COMPLETED:
+                        return new Expected("false", SETTLING, TOP);
+                    case RESET:
+                        return new Expected(VOID, IDLE, TOP, "S0");
+                    case EXPAND:
+                        return new Expected(VOID, SETTLING, BOTTOM, "L8");
+                    default:
+                        return startedFromRest(event);
+                }
+            case DRAGGING_ARMED:
+                switch (event) {
+                    case DRAG_STARTED:
+                        return new Expected(VOID, DRAGGING, TOP);
+                    case SETTLING:
+                        return new Expected(VOID, SETTLING, TOP, "S3");
+                    case MOVE_CONTENT_SCROLLABLE:
+                        return new Expected("false", DRAGGING, TOP);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("true", DRAGGING, TOP);
+                    case RELEASE_BELOW:
+                        return new Expected("0", DRAGGING, NONE, "L0");
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                        return new Expected("100", DRAGGING, TOP);
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("100", DRAGGING, BOTTOM, "L8");
+                    case IDLE_AT_ORIGIN:
+                        return new Expected("false", IDLE, NONE, "S0", "L0");
+                    case IDLE_AWAY:
+                        return new Expected("false", LOADING, TOP, "S2", "R2");
+                    case REFRESH_COMPLETED:
+                        return new Expected("false", DRAGGING, TOP);
+                    case RESET:
+                        return new Expected(VOID, IDLE, TOP, "S0");
+                    case EXPAND:
+                        return new Expected(VOID, DRAGGING, BOTTOM, "L8");
+                    default:
+                        return startedFromRest(event);
+                }
+            case LOADING_TOP:
+                switch (event) {
+                    case DRAG_STARTED:
+                    case SETTLING:
+                    case START_REFRESH:
+                    case RESTORE_REFRESH:
+                    case EXPAND:
+                        return new Expected(VOID, LOADING, TOP);
+                    case MOVE_CONTENT_SCROLLABLE:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("false", LOADING, TOP);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                        return new Expected("true", LOADING, TOP);
+                    case RELEASE_BELOW:
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("0", LOADING, TOP);
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                        return new Expected("100", LOADING, TOP);
+                    case IDLE_AT_ORIGIN:
+                    case IDLE_AWAY:
+                        return new Expected("false", LOADING, TOP);
+                    case REFRESH_COMPLETED:
+                        return new Expected("true", COMPLETED, TOP, "S4");
+                    case RESET:
+                        return new Expected(VOID, IDLE, TOP, "S0");
+                    default:
+                        throw new AssertionError(config + " + " + event);
+                }
+            case COMPLETED_TOP:
+                switch (event) {
+                    case DRAG_STARTED:
+                    case SETTLING:
+                    case START_REFRESH:
+                    case RESTORE_REFRESH:
+                    case EXPAND:
+                        return new Expected(VOID, COMPLETED, TOP);
+                    case MOVE_CONTENT_SCROLLABLE:
+                    case MOVE_CROSS_AXIS:
+                        return new Expected("false", COMPLETED, TOP);
+                    case MOVE_BELOW:
+                    case MOVE_PAST:
+                        return new Expected("true", COMPLETED, TOP);
+                    case RELEASE_BELOW:
+                    case RELEASE_PAST:
+                    case RELEASE_FLING_HALF:
+                    case RELEASE_OTHER_DIRECTION:
+                        return new Expected("0", COMPLETED, TOP);
+                    case IDLE_AT_ORIGIN:
+                        return new Expected("false", IDLE, NONE, "S0", "L0");
+                    case IDLE_AWAY:
+                        return new Expected("true", COMPLETED, TOP);
+                    case REFRESH_COMPLETED:
+                        return new Expected("false", COMPLETED, TOP);
+                    case RESET:
+                        return new Expected(VOID, IDLE, TOP, "S0");
+                    default:
+                        throw new AssertionError(config + " + " + event);
+                }
+            default:
+                throw new AssertionError(config + " + " + event);
+        }
+    }
+
+    /**
+     * 非刷新状态下直接开始/恢复刷新，恢复时不回调onRefresh
+     */
+    private static Expected startedFromRest(Event event) {
+        switch (event) {
+            case START_REFRESH:
+                return new Expected(VOID, LOADING, BOTTOM, "L8", "S2", "R8");
+            case RESTORE_REFRESH:
+                return new Expected(VOID, LOADING, BOTTOM, "L8", "S2");
+            default:
+                throw new AssertionError(event);
+        }
+    }
+
+    private static class Expected {
+
+        final String result;
+        final int state;
+        final int lock;
+        final String[] effects;
+
+        Expected(String result, int state, int lock, String... effects) {
+            this.result = result;
+            this.state = state;
+            this.lock = lock;
+            this.effects = effects;
+        }
+    }
+
+    private static class Recorder implements RefreshStateMachine.Effects {
+
+        final List<String> effects = new ArrayList<>();
+
+        @Override
+        public void onStateChanged(int state) {
+            effects.add("S" + state);
+        }
+
+        @Override
+        public void onRefresh(int direction) {
+            effects.add("R" + direction);
+        }
+
+        @Override
+        public void onLockDirectionChanged(int direction) {
+            effects.add("L" + direction);
+        }
+    }
+
+    /**
+     * 模拟SwipeToRefreshLayout：记录内容偏移，释放/展开/完成后执行滑动并在停止时回调onIdle，
+     * 副作用按布局的方式接到RefreshStats
+     */
+    private static class Harness implements RefreshStateMachine.Effects {
+
+        private static final int[] DIRECTIONS = {LEFT, TOP, RIGHT, BOTTOM};
+
+        final Random random;
+        final RefreshStateMachine machine = new RefreshStateMachine(this);
+        final RefreshStats stats = new RefreshStats();
+        final StringBuilder log = new StringBuilder();
+
+        long now;
+        int offset;
+        int direction = NONE;
+        /**
+         * 当前输入是否允许锁定方向：越过刷新点的释放、展开、直接开始/恢复刷新
+         */
+        boolean lockAllowed;
+        boolean restored;
+        int refreshes;
+
+        Harness(long seed) {
+            this.random = new Random(seed);
+        }
+
+        void step() {
+            now += 1 + random.nextInt(500);
+            switch (random.nextInt(12)) {
+                case 0:
+                case 1:
+                case 2:
+                    gesture();
+                    break;
+                case 3:
+                    log("completed");
+                    if (machine.onRefreshCompleted()) settleTo(0);
+                    break;
+                case 4:
+                    log("reset");
+                    machine.reset();
+                    settleTo(0);
+                    break;
+                case 5:
+                    int start = randomDirection();
+                    log("startRefresh " + start);
+                    lockAllowed = true;
+                    machine.startRefresh(start);
+                    lockAllowed = false;
+                    if (machine.getLockDirection() == start && machine.getState() == LOADING) {
+                        direction = start;
+                        offset = EXTENT;
+                    }
+                    break;
+                case 6:
+                    int restore = randomDirection();
+                    log("restoreRefresh " + restore);
+                    boolean wasRefreshing = machine.isRefreshing();
+                    lockAllowed = true;
+                    machine.restoreRefresh(restore);
+                    lockAllowed = false;
+                    if (!wasRefreshing) {
+                        restored = true;
+                        direction = restore;
+                        offset = EXTENT;
+                    }
+                    break;
+                case 7:
+                    int expand = randomDirection();
+                    log("expand " + expand);
+                    if (machine.isRefreshing()) {
+                        machine.onExpand(expand);
+                    } else {
+                        machine.reset();
+                        settleTo(0);
+                        lockAllowed = true;
+                        machine.onExpand(expand);
+                        lockAllowed = false;
+                        direction = expand;
+                        settleTo(EXTENT);
+                    }
+                    break;
+                case 8:
+                    log("timeout");
+                    if (machine.getState() == LOADING) stats.onRefreshTimeout();
+                    break;
+                case 9:
+                    //被打断的滑动，停在当前位置
+                    log("interrupted at " + offset);
+                    if (machine.onIdle(offset == 0)) settleTo(0);
+                    break;
+                default:
+                    if (machine.getState() == COMPLETED) {
+                        log("idle after completed");
+                        assertTrue("COMPLETED停在原点外必须滑回", offset == 0 || machine.onIdle(false));
+                        settleTo(0);
+                        assertEquals("COMPLETED滑回原点后回到IDLE", IDLE, machine.getState());
+                    } else {
+                        gesture();
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * 一次完整手势：按下、若干次移动、释放、滑到状态机给出的位置
+         */
+        void gesture() {
+            machine.onDragStarted();
+            int moves = 1 + random.nextInt(6);
+            int dir = machine.isRefreshing() && random.nextBoolean() ? machine.getLockDirection() : randomDirection();
+            boolean contentCanScroll = random.nextInt(3) == 0;
+            int moveOffset = 0;
+            for (int i = 0; i < moves; i++) {
+                moveOffset = random.nextInt(EXTENT * 3 / 2);
+                if (machine.onPointerMove(dir, moveOffset, EXTENT, contentCanScroll)) {
+                    direction = dir;
+                    offset = moveOffset;
+                }
+            }
+            float velocity = random.nextInt(3) * MIN_FLING - MIN_FLING / 2;
+            boolean wasRefreshing = machine.isRefreshing();
+            boolean crossed = offset >= EXTENT || offset >= EXTENT / 2 && velocity >= MIN_FLING;
+            log("gesture dir=" + dir + " offset=" + offset + " v=" + velocity + " scrollable=" + contentCanScroll);
+            lockAllowed = !wasRefreshing && crossed;
+            int target = machine.onRelease(velocity, MIN_FLING);
+            lockAllowed = false;
+            if (target > 0) {
+                assertTrue("未越过刷新点却停在展开处", crossed);
+            }
+            settleTo(target);
+        }
+
+        void settleTo(int target) {
+            if (offset != target) {
+                machine.onSettling();
+                if (random.nextInt(4) == 0) {
+                    //滑动被新的触摸打断，停在中途
+                    int stop = Math.min(offset, target) + 1 + random.nextInt(Math.abs(offset - target));
+                    if (stop != target) {
+                        offset = stop;
+                        log("settle interrupted at " + stop);
+                        if (!machine.onIdle(false)) return;
+                    }
+                }
+            }
+            offset = target;
+            if (target == 0) direction = NONE;
+            if (machine.onIdle(offset == 0)) {
+                machine.onSettling();
+                offset = 0;
+                direction = NONE;
+                assertFalse(machine.onIdle(true));
+            }
+        }
+
+        /**
+         * 结束时刷新中的先完成，最终必须回到IDLE
+         */
+        void drain() {
+            if (machine.getState() == LOADING) {
+                assertTrue(machine.onRefreshCompleted());
+                settleTo(0);
+            }
+            if (machine.getState() != IDLE) settleTo(0);
+            assertEquals(IDLE, machine.getState());
+            assertEquals(NONE, machine.getLockDirection());
+        }
+
+        void checkInvariants() {
+            int state = machine.getState();
+            if (state == LOADING || state == COMPLETED) {
+                assertTrue("刷新中必须有锁定方向", machine.getLockDirection() != NONE);
+            }
+            int expectedLoading = state == LOADING && !restored ? machine.getLockDirection() : NONE;
+            assertEquals("RefreshStats正在刷新的方向", expectedLoading, stats.mLoadingDirection);
+            int started = 0;
+            for (int dir : DIRECTIONS) {
+                RefreshStats.DirectionStats s = stats.get(dir);
+                int active = stats.mLoadingDirection == dir ? 1 : 0;
+                assertEquals("方向" + dir + " started == completed + cancelled + active",
+                        s.getStarted(), s.getCompleted() + s.getCancelled() + active);
+                assertEquals(s.getCompleted(), s.getDuration().getCount());
+                assertTrue(s.getTimedOut() <= s.getStarted());
+                started += s.getStarted();
+            }
+            assertEquals("每次onRefresh都计入统计", refreshes, started);
+        }
+
+        int randomDirection() {
+            return DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+        }
+
+        void log(String message) {
+            log.append(message).append(" -> state=").append(machine.getState())
+                    .append(" lock=").append(machine.getLockDirection()).append('\n');
+        }
+
+        @Override
+        public void onStateChanged(int state) {
+            if (state == LOADING) {
+                assertTrue("进入LOADING时必须已锁定方向", machine.getLockDirection() != NONE);
+            } else {
+                restored = false;
+            }
+            stats.onStateChanged(state, now);
+        }
+
+        @Override
+        public void onRefresh(int direction) {
+            assertEquals(machine.getLockDirection(), direction);
+            refreshes++;
+            stats.onRefreshStarted(direction, now);
+        }
+
+        @Override
+        public void onLockDirectionChanged(int direction) {
+            if (direction != NONE) {
+                assertTrue("只有越过刷新点的释放、展开、直接开始/恢复刷新才能锁定方向", lockAllowed);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package lib.phenix.com.swipetorefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SnapPointsTest {
+
+    private static final int EXTENT = 300;
+    private static final float MIN_FLING = 100;
+    private static final float[] THIRDS = SnapPoints.normalize(1 / 3f, 2 / 3f, 1f);
+
+    @Test
+    public void normalizeEmptyFallsBackToFullReveal() {
+        assertSame(SnapPoints.FULL_REVEAL, SnapPoints.normalize());
+        assertSame(SnapPoints.FULL_REVEAL, SnapPoints.normalize((float[]) null));
+    }
+
+    @Test
+    public void normalizeSortsUnsortedPoints() {
+        assertArrayEquals(new float[]{0.25f, 0.5f, 1f}, SnapPoints.normalize(1f, 0.25f, 0.5f), 0f);
+    }
+
+    @Test
+    public void normalizeRemovesDuplicates() {
+        assertArrayEquals(new float[]{0.5f, 1f}, SnapPoints.normalize(1f, 0.5f, 1f, 0.5f), 0f);
+    }
+
+    @Test
+    public void normalizeDoesNotModifyInput() {
+        float[] input = {1f, 0.5f};
+        SnapPoints.normalize(input);
+        assertArrayEquals(new float[]{1f, 0.5f}, input, 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void normalizeRejectsZero() {
+        SnapPoints.normalize(0f, 1f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void normalizeRejectsAboveOne() {
+        SnapPoints.normalize(0.5f, 1.01f);
+    }
+
+    @Test
+    public void emptySnapListOnlyCloses() {
+        float[] empty = new float[0];
+        assertEquals(0, SnapPoints.findSnapOffset(150, EXTENT, empty, 0, MIN_FLING));
+        assertEquals(0, SnapPoints.findSnapOffset(150, EXTENT, empty, 1000, MIN_FLING));
+        assertEquals(0, SnapPoints.findSnapOffset(150, EXTENT, empty, -1000, MIN_FLING));
+    }
+
+    @Test
+    public void noEdgeViewAlwaysCloses() {
+        assertEquals(0, SnapPoints.findSnapOffset(150, 0, THIRDS, 1000, MIN_FLING));
+    }
+
+    @Test
+    public void slowReleaseSnapsToNearest() {
+        assertEquals(0, SnapPoints.findSnapOffset(40, EXTENT, THIRDS, 0, MIN_FLING));
+        assertEquals(100, SnapPoints.findSnapOffset(60, EXTENT, THIRDS, 0, MIN_FLING));
+        assertEquals(200, SnapPoints.findSnapOffset(170, EXTENT, THIRDS, MIN_FLING - 1, MIN_FLING));
+        assertEquals(300, SnapPoints.findSnapOffset(260, EXTENT, THIRDS, -(MIN_FLING - 1), MIN_FLING));
+    }
+
+    @Test
+    public void flingOpeningSnapsToNextPoint() {
+        assertEquals(100, SnapPoints.findSnapOffset(10, EXTENT, THIRDS, MIN_FLING, MIN_FLING));
+        assertEquals(200, SnapPoints.findSnapOffset(120, EXTENT, THIRDS, 1000, MIN_FLING));
+        assertEquals(300, SnapPoints.findSnapOffset(210, EXTENT, THIRDS, 1000, MIN_FLING));
+    }
+
+    @Test
+    public void flingClosingSnapsToPreviousPoint() {
+        assertEquals(200, SnapPoints.findSnapOffset(290, EXTENT, THIRDS, -MIN_FLING, MIN_FLING));
+        assertEquals(100, SnapPoints.findSnapOffset(150, EXTENT, THIRDS, -1000, MIN_FLING));
+        assertEquals(0, SnapPoints.findSnapOffset(90, EXTENT, THIRDS, -1000, MIN_FLING));
+    }
+
+    @Test
+    public void offsetExactlyOnSnapPoint() {
+        assertEquals(200, SnapPoints.findSnapOffset(200, EXTENT, THIRDS, 0, MIN_FLING));
+        assertEquals(300, SnapPoints.findSnapOffset(200, EXTENT, THIRDS, 1000, MIN_FLING));
+        assertEquals(100, SnapPoints.findSnapOffset(200, EXTENT, THIRDS, -1000, MIN_FLING));
+        assertEquals(0, SnapPoints.findSnapOffset(0, EXTENT, THIRDS, 0, MIN_FLING));
+    }
+
+    @Test
+    public void duplicatePointsBehaveLikeSinglePoint() {
+        float[] duplicates = {0.5f, 0.5f, 1f, 1f};
+        assertEquals(150, SnapPoints.findSnapOffset(160, EXTENT, duplicates, 0, MIN_FLING));
+        assertEquals(300, SnapPoints.findSnapOffset(150, EXTENT, duplicates, 1000, MIN_FLING));
+        assertEquals(150, SnapPoints.findSnapOffset(300, EXTENT, duplicates, -1000, MIN_FLING));
+    }
+
+    @Test
+    public void clampsPastFullyOpen() {
+        assertEquals(300, SnapPoints.findSnapOffset(420, EXTENT, THIRDS, 0, MIN_FLING));
+        assertEquals(300, SnapPoints.findSnapOffset(420, EXTENT, THIRDS, 1000, MIN_FLING));
+        assertEquals(300, SnapPoints.findSnapOffset(300, EXTENT, THIRDS, 1000, MIN_FLING));
+    }
+
+    @Test
+    public void clampsPastClosed() {
+        assertEquals(0, SnapPoints.findSnapOffset(-50, EXTENT, THIRDS, 0, MIN_FLING));
+        assertEquals(0, SnapPoints.findSnapOffset(-50, EXTENT, THIRDS, -1000, MIN_FLING));
+        assertEquals(100, SnapPoints.findSnapOffset(-50, EXTENT, THIRDS, 1000, MIN_FLING));
+    }
+}
@@ -0,0 +1,114 @@
+package lib.phenix.com.swipetorefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VelocityEstimatorTest {
+
+    private static final float DELTA = 0.01f;
+
+    @Test
+    public void constantVelocity() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        for (long t = 0; t <= 64; t += 8) {
+            estimator.addSample(2 * t, 500 - t, t);
+        }
+        estimator.computeVelocity();
+        assertEquals(2000f, estimator.getXVelocity(), DELTA);
+        assertEquals(-1000f, estimator.getYVelocity(), DELTA);
+    }
+
+    @Test
+    public void fewerThanTwoSamples() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        estimator.computeVelocity();
+        assertEquals(0f, estimator.getXVelocity(), 0f);
+        assertEquals(0f, estimator.getYVelocity(), 0f);
+
+        estimator.addSample(10, 10, 100);
+        estimator.computeVelocity();
+        assertEquals(0f, estimator.getXVelocity(), 0f);
+
+        estimator.addSample(50, 50, 100);
+        estimator.computeVelocity();
+        assertEquals("相同时间覆盖最新采样，仍然只有一个采样", 0f, estimator.getXVelocity(), 0f);
+    }
+
+    @Test
+    public void olderSampleIsIgnored() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        estimator.addSample(0, 0, 100);
+        estimator.addSample(10, 0, 110);
+        estimator.addSample(1000, 0, 105);
+        estimator.computeVelocity();
+        assertEquals(1000f, estimator.getXVelocity(), DELTA);
+    }
+
+    @Test
+    public void gapLongerThanAssumeStoppedResets() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        for (long t = 0; t <= 40; t += 8) {
+            estimator.addSample(10 * t, 0, t);
+        }
+        //停顿50ms后抬起，停顿之前的快速移动不计入
+        estimator.addSample(400, 0, 90);
+        estimator.computeVelocity();
+        assertEquals(0f, estimator.getXVelocity(), 0f);
+
+        estimator.addSample(410, 0, 100);
+        estimator.computeVelocity();
+        assertEquals(1000f, estimator.getXVelocity(), DELTA);
+    }
+
+    @Test
+    public void gapOfExactlyAssumeStoppedIsKept() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        estimator.addSample(0, 0, 0);
+        estimator.addSample(40, 0, 40);
+        estimator.computeVelocity();
+        assertEquals(1000f, estimator.getXVelocity(), DELTA);
+    }
+
+    @Test
+    public void onlyLastHundredMillisecondsAreUsed() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        //前90ms每毫秒10px，之后每毫秒1px
+        for (long t = 0; t <= 190; t += 10) {
+            estimator.addSample(t <= 90 ? 10 * t : 900 + (t - 90), 0, t);
+        }
+        estimator.computeVelocity();
+        assertEquals(1000f, estimator.getXVelocity(), DELTA);
+    }
+
+    @Test
+    public void ringBufferWrapsAround() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        //间隔5ms，最近20个采样跨95ms都在时间窗口内，更早的采样只能靠被覆盖来排除
+        long t = 0;
+        float x = 0;
+        for (int i = 0; i < 33; i++, t += 5) {
+            estimator.addSample(x, 0, t);
+            x += 50;
+        }
+        for (int i = 0; i < 20; i++, t += 5) {
+            estimator.addSample(x, 0, t);
+            x += 10;
+        }
+        estimator.computeVelocity();
+        assertEquals(2000f, estimator.getXVelocity(), DELTA);
+    }
+
+    @Test
+    public void clearForgetsSamples() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        estimator.addSample(0, 0, 0);
+        estimator.addSample(100, 100, 10);
+        estimator.computeVelocity();
+        estimator.clear();
+        assertEquals(0f, estimator.getXVelocity(), 0f);
+        estimator.addSample(0, 0, 5);
+        estimator.computeVelocity();
+        assertEquals("clear后更早的时间也被接受，但只有一个采样", 0f, estimator.getXVelocity(), 0f);
+    }
+}